@@ -0,0 +1,13 @@
+#!/bin/sh
+# Starts Petclinic with the Class Data Sharing archive written by the training run of
+# the "cds" build, see the readme. Arguments are passed to the application, and JVM
+# options can be set with JAVA_OPTS, e.g. JAVA_OPTS=-Dspring.aot.enabled=true to also
+# use the ahead-of-time processed bean definitions, with the archive of their own
+# training run.
+cd "$(dirname "$0")" || exit 1
+archive=application.jsa
+case "$JAVA_OPTS" in
+  *-Dspring.aot.enabled=true*) archive=application-aot.jsa ;;
+esac
+exec java -XX:SharedArchiveFile=$archive $JAVA_OPTS \
+  -jar spring-petclinic-*.jar "$@"
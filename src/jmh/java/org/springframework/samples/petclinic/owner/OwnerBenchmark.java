@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for the pet lookups of {@link Owner}, which scan the pets linearly. The last
+ * pet is looked up, so each call walks the whole list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OwnerBenchmark {
+
+	@Param({ "1", "10", "100" })
+	private int pets;
+
+	private Owner owner;
+
+	private String lastName;
+
+	private Integer lastId;
+
+	@Setup
+	public void setup() {
+		this.owner = owner(this.pets);
+		Pet last = this.owner.getPets().get(this.pets - 1);
+		this.lastName = last.getName().toUpperCase();
+		this.lastId = last.getId();
+	}
+
+	@Benchmark
+	public Pet getPetByName() {
+		return this.owner.getPet(this.lastName, false);
+	}
+
+	@Benchmark
+	public Pet getPetByNameIgnoringNew() {
+		return this.owner.getPet(this.lastName, true);
+	}
+
+	@Benchmark
+	public Pet getPetById() {
+		return this.owner.getPet(this.lastId);
+	}
+
+	/**
+	 * Create an owner with the given number of pets, each with two visits.
+	 * @param pets the number of pets
+	 * @return the owner
+	 */
+	static Owner owner(int pets) {
+		Owner owner = new Owner();
+		owner.setId(1);
+		owner.setFirstName("George");
+		owner.setLastName("Franklin");
+		owner.setAddress("110 W. Liberty St.");
+		owner.setCity("Madison");
+		owner.setTelephone("6085551023");
+		PetType cat = new PetType();
+		cat.setId(1);
+		cat.setName("cat");
+		for (int i = 1; i <= pets; i++) {
+			Pet pet = new Pet();
+			pet.setName("Pet " + i);
+			pet.setBirthDate(LocalDate.of(2010, 1, 1).plusDays(i));
+			pet.setType(cat);
+			owner.addPet(pet);
+			pet.setId(i);
+			for (int v = 1; v <= 2; v++) {
+				Visit visit = new Visit();
+				visit.setId(i * 2 + v);
+				visit.setDate(LocalDate.of(2013, 1, v));
+				visit.setDescription("visit " + v);
+				pet.addVisit(visit);
+			}
+		}
+		return owner;
+	}
+
+}
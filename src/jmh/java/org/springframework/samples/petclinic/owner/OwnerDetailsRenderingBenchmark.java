@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+/**
+ * Benchmark of the Thymeleaf rendering of {@code owners/ownerDetails} with its layout,
+ * for owners with 1, 10 and 100 pets of two visits each. The templates are parsed once
+ * and cached like in production; the {@code pc:cache} attribute is not processed, so the
+ * whole page is rendered on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OwnerDetailsRenderingBenchmark {
+
+	@Param({ "1", "10", "100" })
+	private int pets;
+
+	private SpringTemplateEngine templateEngine;
+
+	private WebContext context;
+
+	@Setup
+	public void setup() {
+		ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+		templateResolver.setPrefix("templates/");
+		templateResolver.setSuffix(".html");
+		templateResolver.setTemplateMode(TemplateMode.HTML);
+		templateResolver.setCharacterEncoding("UTF-8");
+		this.templateEngine = new SpringTemplateEngine();
+		this.templateEngine.setTemplateResolver(templateResolver);
+
+		MockServletContext servletContext = new MockServletContext();
+		JakartaServletWebApplication application = JakartaServletWebApplication.buildApplication(servletContext);
+		MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/owners/1");
+		this.context = new WebContext(application.buildExchange(request, new MockHttpServletResponse()),
+				Locale.ENGLISH);
+		this.context.setVariable("owner", OwnerBenchmark.owner(this.pets));
+	}
+
+	@Benchmark
+	public String render() {
+		StringWriter html = new StringWriter(16384);
+		this.templateEngine.process("owners/ownerDetails", this.context, html);
+		return html.toString();
+	}
+
+}
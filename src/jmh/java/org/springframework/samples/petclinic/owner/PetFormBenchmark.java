@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+/**
+ * Benchmarks for the conversion and validation applied when a pet form is bound: the
+ * {@link PetTypeFormatter} and the {@link PetValidator}. The pet types come from a mocked
+ * repository, whose call takes most of the time of {@code parsePetType}: compare its
+ * score across changes of the formatter, not with the time of a request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PetFormBenchmark {
+
+	private PetTypeFormatter formatter;
+
+	private final PetValidator validator = new PetValidator();
+
+	private PetType snake;
+
+	private Pet validPet;
+
+	private Pet invalidPet;
+
+	@Setup
+	public void setup() {
+		List<PetType> petTypes = Stream.of("bird", "cat", "dog", "hamster", "lizard", "snake").map(name -> {
+			PetType type = new PetType();
+			type.setName(name);
+			return type;
+		}).toList();
+		// stub only, so that the invocations are not recorded for verification
+		OwnerRepository owners = mock(OwnerRepository.class, withSettings().stubOnly());
+		given(owners.findPetTypes()).willReturn(petTypes);
+		this.formatter = new PetTypeFormatter(owners);
+		this.snake = petTypes.get(petTypes.size() - 1);
+		this.validPet = new Pet();
+		this.validPet.setName("Leo");
+		this.validPet.setType(this.snake);
+		this.validPet.setBirthDate(LocalDate.of(2010, 9, 7));
+		this.invalidPet = new Pet();
+	}
+
+	@Benchmark
+	public PetType parsePetType() throws ParseException {
+		return this.formatter.parse("snake", Locale.ENGLISH);
+	}
+
+	@Benchmark
+	public String printPetType() {
+		return this.formatter.print(this.snake, Locale.ENGLISH);
+	}
+
+	@Benchmark
+	public Errors validateValidPet() {
+		Errors errors = new BeanPropertyBindingResult(this.validPet, "pet");
+		this.validator.validate(this.validPet, errors);
+		return errors;
+	}
+
+	@Benchmark
+	public Errors validateInvalidPet() {
+		Errors errors = new BeanPropertyBindingResult(this.invalidPet, "pet");
+		this.validator.validate(this.invalidPet, errors);
+		return errors;
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.vet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+/**
+ * Benchmarks of the representations of {@link Vets} served by {@code /vets}: JSON, CBOR
+ * and Smile with Jackson, and XML with JAXB and with the streaming
+ * {@link VetsXmlHttpMessageConverter}. Run with {@code -prof gc} to compare the
+ * allocation rates as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VetsSerializationBenchmark {
+
+	private static final String[] SPECIALTIES = { "radiology", "surgery", "dentistry", "cardiology", "oncology",
+			"dermatology", "neurology", "ophthalmology", "anesthesia", "nutrition" };
+
+	@Param({ "6", "100" })
+	private int vets;
+
+	private Vets payload;
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream(65536);
+
+	private final ObjectMapper json = new ObjectMapper();
+
+	private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+	private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+	private final VetsXmlHttpMessageConverter stax = new VetsXmlHttpMessageConverter();
+
+	private JAXBContext jaxbContext;
+
+	@Setup
+	public void setup() throws JAXBException {
+		this.payload = new Vets();
+		for (int i = 1; i <= this.vets; i++) {
+			this.payload.getVetList().add(vet(i, i % 3));
+		}
+		this.jaxbContext = JAXBContext.newInstance(Vets.class);
+	}
+
+	@Benchmark
+	public int json() throws IOException {
+		this.out.reset();
+		this.json.writeValue(this.out, this.payload);
+		return this.out.size();
+	}
+
+	@Benchmark
+	public int cbor() throws IOException {
+		this.out.reset();
+		this.cbor.writeValue(this.out, this.payload);
+		return this.out.size();
+	}
+
+	@Benchmark
+	public int smile() throws IOException {
+		this.out.reset();
+		this.smile.writeValue(this.out, this.payload);
+		return this.out.size();
+	}
+
+	@Benchmark
+	public int xmlJaxb() throws JAXBException {
+		this.out.reset();
+		// like Jaxb2RootElementHttpMessageConverter, one marshaller per message
+		Marshaller marshaller = this.jaxbContext.createMarshaller();
+		marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+		marshaller.marshal(this.payload, this.out);
+		return this.out.size();
+	}
+
+	@Benchmark
+	public int xmlStax() throws IOException {
+		this.out.reset();
+		this.stax.write(this.payload, this.out);
+		return this.out.size();
+	}
+
+	/**
+	 * Create a vet with the given number of specialties.
+	 * @param id the id of the vet
+	 * @param specialties the number of specialties, at most 10
+	 * @return the vet
+	 */
+	static Vet vet(int id, int specialties) {
+		Vet vet = new Vet();
+		vet.setId(id);
+		vet.setFirstName("First" + id);
+		vet.setLastName("Last" + id);
+		for (int i = 0; i < specialties; i++) {
+			Specialty specialty = new Specialty();
+			specialty.setId(i + 1);
+			specialty.setName(SPECIALTIES[SPECIALTIES.length - 1 - i]);
+			vet.addSpecialty(specialty);
+		}
+		return vet;
+	}
+
+}
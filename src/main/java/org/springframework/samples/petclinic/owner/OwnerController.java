@@ -21,6 +21,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpMethod;
+import org.springframework.samples.petclinic.system.FragmentCache;
+import org.springframework.samples.petclinic.system.StreamingViews;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -32,6 +35,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.View;
 
 import jakarta.validation.Valid;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
@@ -49,8 +53,14 @@ class OwnerController {
 
 	private final OwnerRepository owners;
 
-	public OwnerController(OwnerRepository clinicService) {
+	private final FragmentCache fragments;
+
+	private final StreamingViews streamingViews;
+
+	public OwnerController(OwnerRepository clinicService, FragmentCache fragments, StreamingViews streamingViews) {
 		this.owners = clinicService;
+		this.fragments = fragments;
+		this.streamingViews = streamingViews;
 	}
 
 	@InitBinder
@@ -58,9 +68,16 @@ class OwnerController {
 		dataBinder.setDisallowedFields("id");
 	}
 
+	/**
+	 * Load the owner that an update form is bound onto. The pages that show an owner load
+	 * it themselves, with what their views need, so it is not loaded for them.
+	 * @param ownerId the id of the owner, if the request is about one
+	 * @param method the method of the request
+	 * @return the stored owner for a form submission, a new one otherwise
+	 */
 	@ModelAttribute("owner")
-	public Owner findOwner(@PathVariable(name = "ownerId", required = false) Integer ownerId) {
-		return ownerId == null ? new Owner() : this.owners.findById(ownerId);
+	public Owner findOwner(@PathVariable(name = "ownerId", required = false) Integer ownerId, HttpMethod method) {
+		return (ownerId == null || !HttpMethod.POST.equals(method)) ? new Owner() : this.owners.findById(ownerId);
 	}
 
 	@GetMapping("/owners/new")
@@ -122,6 +139,18 @@ class OwnerController {
 		return "owners/ownersList";
 	}
 
+	/**
+	 * Render all owners whose last name starts with the given name on one page, streaming
+	 * the rows to the client while they are read from the database.
+	 * @param lastName the last name prefix, all owners if empty
+	 * @return the streaming view
+	 */
+	@GetMapping("/owners/export")
+	public View exportOwners(@RequestParam(defaultValue = "") String lastName) {
+		return this.streamingViews.streaming("owners/ownersExport", "listOwners",
+				() -> this.owners.streamByLastName(lastName));
+	}
+
 	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
 		int pageSize = 5;
 		Pageable pageable = PageRequest.of(page - 1, pageSize);
@@ -145,6 +174,7 @@ class OwnerController {
 
 		owner.setId(ownerId);
 		this.owners.save(owner);
+		this.fragments.evict("owner:" + ownerId + ":");
 		redirectAttributes.addFlashAttribute("message", "Owner Values Updated");
 		return "redirect:/owners/{ownerId}";
 	}
@@ -157,7 +187,7 @@ class OwnerController {
 	@GetMapping("/owners/{ownerId}")
 	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
 		ModelAndView mav = new ModelAndView("owners/ownerDetails");
-		Owner owner = this.owners.findById(ownerId);
+		Owner owner = this.owners.findWithVisitsById(ownerId);
 		mav.addObject(owner);
 		return mav;
 	}
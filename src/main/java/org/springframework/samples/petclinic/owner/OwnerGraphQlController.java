@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+
+/**
+ * GraphQL entry points for the owner aggregate (owners, pets, visits and pet types).
+ * <p>
+ * Child relations are resolved with {@link BatchMapping @BatchMapping}, so each level of
+ * a query is resolved once for all parents of that level rather than once per parent. The
+ * pets, their types and their visits are each read with one {@code IN} query on the
+ * parents, however many there are, rather than relying on
+ * {@code hibernate.default_batch_fetch_size} and its one statement per 64 parents.
+ */
+@Controller
+class OwnerGraphQlController {
+
+	private static final int MAX_PAGE_SIZE = 50;
+
+	private final OwnerRepository owners;
+
+	public OwnerGraphQlController(OwnerRepository owners) {
+		this.owners = owners;
+	}
+
+	@QueryMapping
+	public Owner owner(@Argument Integer id) {
+		return this.owners.findById(id);
+	}
+
+	@QueryMapping
+	public List<Owner> owners(@Argument String lastName, @Argument int page, @Argument int size) {
+		PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+		return this.owners.findByLastName(lastName == null ? "" : lastName, pageable).getContent();
+	}
+
+	@QueryMapping
+	public List<PetType> petTypes() {
+		return this.owners.findPetTypes();
+	}
+
+	@BatchMapping
+	public List<List<Pet>> pets(List<Owner> owners) {
+		Map<Integer, List<Pet>> petsByOwner = new HashMap<>();
+		for (Owner owner : this.owners.findOwnersWithPets(owners)) {
+			petsByOwner.put(owner.getId(), owner.getPets());
+		}
+		List<List<Pet>> pets = new ArrayList<>(owners.size());
+		for (Owner owner : owners) {
+			pets.add(petsByOwner.getOrDefault(owner.getId(), List.of()));
+		}
+		return pets;
+	}
+
+	@BatchMapping
+	public List<PetType> type(List<Pet> pets) {
+		Map<Integer, PetType> typeByPet = new HashMap<>();
+		for (Pet pet : this.owners.findPetsWithTypes(pets)) {
+			typeByPet.put(pet.getId(), pet.getType());
+		}
+		List<PetType> types = new ArrayList<>(pets.size());
+		for (Pet pet : pets) {
+			types.add(typeByPet.get(pet.getId()));
+		}
+		return types;
+	}
+
+	@BatchMapping
+	public List<Collection<Visit>> visits(List<Pet> pets) {
+		Map<Integer, Collection<Visit>> visitsByPet = new HashMap<>();
+		for (Pet pet : this.owners.findPetsWithVisits(pets)) {
+			visitsByPet.put(pet.getId(), pet.getVisits());
+		}
+		List<Collection<Visit>> visits = new ArrayList<>(pets.size());
+		for (Pet pet : pets) {
+			visits.add(visitsByPet.getOrDefault(pet.getId(), List.of()));
+		}
+		return visits;
+	}
+
+}
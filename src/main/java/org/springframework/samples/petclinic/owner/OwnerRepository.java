@@ -15,15 +15,21 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository class for <code>Owner</code> domain objects All method names are compliant
  * with Spring Data naming conventions so this interface can easily be extended for Spring
@@ -38,11 +44,13 @@ import org.springframework.transaction.annotation.Transactional;
 public interface OwnerRepository extends Repository<Owner, Integer> {
 
 	/**
-	 * Retrieve all {@link PetType}s from the data store.
+	 * Retrieve all {@link PetType}s from the data store, or from the {@code petTypes}
+	 * cache, as the pet forms convert every option of their type select.
 	 * @return a Collection of {@link PetType}s.
 	 */
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
 	@Transactional(readOnly = true)
+	@Cacheable("petTypes")
 	List<PetType> findPetTypes();
 
 	/**
@@ -58,14 +66,76 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	Page<Owner> findByLastName(@Param("lastName") String lastName, Pageable pageable);
 
 	/**
-	 * Retrieve an {@link Owner} from the data store by id.
+	 * Stream a summary of the {@link Owner}s whose last name <i>starts</i> with the given
+	 * name from a database cursor, with the names of their pets aggregated into one
+	 * column. The stream must be consumed inside a transaction and closed afterwards.
+	 * @param lastName Value to search for
+	 * @return the matching {@link OwnerSummary summaries}, ordered by id
+	 */
+	@Query("SELECT owner.id AS id, owner.firstName AS firstName, owner.lastName AS lastName, "
+			+ "owner.address AS address, owner.city AS city, owner.telephone AS telephone, "
+			+ "listagg(pet.name, ', ') WITHIN GROUP (ORDER BY pet.name) AS pets "
+			+ "FROM Owner owner left join owner.pets pet WHERE owner.lastName LIKE :lastName% "
+			+ "GROUP BY owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone "
+			+ "ORDER BY owner.id")
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "100"))
+	@Transactional(readOnly = true)
+	Stream<OwnerSummary> streamByLastName(@Param("lastName") String lastName);
+
+	/**
+	 * Retrieve an {@link Owner} from the data store by id, with its pets and their types
+	 * but without the visits of the pets.
 	 * @param id the id to search for
 	 * @return the {@link Owner} if found
 	 */
-	@Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+	@Query("SELECT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.type WHERE owner.id =:id")
 	@Transactional(readOnly = true)
 	Owner findById(@Param("id") Integer id);
 
+	/**
+	 * Retrieve an {@link Owner} from the data store by id, with its pets and their
+	 * visits. The visits are loaded with a second statement, fetching them with the pets
+	 * would repeat each pet once per visit.
+	 * @param id the id to search for
+	 * @return the {@link Owner} if found
+	 */
+	@Transactional(readOnly = true)
+	default Owner findWithVisitsById(Integer id) {
+		Owner owner = findById(id);
+		if (owner != null && !owner.getPets().isEmpty()) {
+			findPetsWithVisits(owner.getPets());
+		}
+		return owner;
+	}
+
+	/**
+	 * Retrieve the given {@link Pet}s with their types and visits.
+	 * @param pets the pets to load
+	 * @return the pets, in no particular order
+	 */
+	@Query("SELECT DISTINCT pet FROM Pet pet left join fetch pet.type left join fetch pet.visits WHERE pet IN :pets")
+	@Transactional(readOnly = true)
+	List<Pet> findPetsWithVisits(@Param("pets") Collection<Pet> pets);
+
+	/**
+	 * Retrieve the given {@link Owner}s with their pets and the types of the pets.
+	 * @param owners the owners to load
+	 * @return the owners, in no particular order
+	 */
+	@Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.type "
+			+ "WHERE owner IN :owners")
+	@Transactional(readOnly = true)
+	List<Owner> findOwnersWithPets(@Param("owners") Collection<Owner> owners);
+
+	/**
+	 * Retrieve the given {@link Pet}s with their types.
+	 * @param pets the pets to load
+	 * @return the pets, in no particular order
+	 */
+	@Query("SELECT DISTINCT pet FROM Pet pet left join fetch pet.type WHERE pet IN :pets")
+	@Transactional(readOnly = true)
+	List<Pet> findPetsWithTypes(@Param("pets") Collection<Pet> pets);
+
 	/**
 	 * Save an {@link Owner} to the data store, either inserting or updating it.
 	 * @param owner the {@link Owner} to save
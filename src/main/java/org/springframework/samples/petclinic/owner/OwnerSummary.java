@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+/**
+ * Read-only projection of an {@link Owner} row in the owner listings, with the names of
+ * the pets joined into one string.
+ *
+ * @see OwnerRepository#streamByLastName(String)
+ */
+public interface OwnerSummary {
+
+	Integer getId();
+
+	String getFirstName();
+
+	String getLastName();
+
+	String getAddress();
+
+	String getCity();
+
+	String getTelephone();
+
+	String getPets();
+
+}
@@ -18,6 +18,7 @@ package org.springframework.samples.petclinic.owner;
 import java.time.LocalDate;
 import java.util.Collection;
 
+import org.springframework.samples.petclinic.system.FragmentCache;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.util.StringUtils;
@@ -46,8 +47,11 @@ class PetController {
 
 	private final OwnerRepository owners;
 
-	public PetController(OwnerRepository owners) {
+	private final FragmentCache fragments;
+
+	public PetController(OwnerRepository owners, FragmentCache fragments) {
 		this.owners = owners;
+		this.fragments = fragments;
 	}
 
 	@ModelAttribute("types")
@@ -66,18 +70,10 @@ class PetController {
 	}
 
 	@ModelAttribute("pet")
-	public Pet findPet(@PathVariable("ownerId") int ownerId,
+	public Pet findPet(@ModelAttribute(name = "owner", binding = false) Owner owner,
 			@PathVariable(name = "petId", required = false) Integer petId) {
-
-		if (petId == null) {
-			return new Pet();
-		}
-
-		Owner owner = this.owners.findById(ownerId);
-		if (owner == null) {
-			throw new IllegalArgumentException("Owner ID not found: " + ownerId);
-		}
-		return owner.getPet(petId);
+		// the pet of the owner loaded above, rather than loading the owner again
+		return (petId != null) ? owner.getPet(petId) : new Pet();
 	}
 
 	@InitBinder("owner")
@@ -117,6 +113,7 @@ class PetController {
 		}
 
 		this.owners.save(owner);
+		this.fragments.evict("owner:" + owner.getId() + ":");
 		redirectAttributes.addFlashAttribute("message", "New Pet has been Added");
 		return "redirect:/owners/{ownerId}";
 	}
@@ -153,10 +150,30 @@ class PetController {
 			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
 		}
 
-		owner.addPet(pet);
+		updatePetDetails(owner, pet);
 		this.owners.save(owner);
+		this.fragments.evict("owner:" + owner.getId() + ":");
 		redirectAttributes.addFlashAttribute("message", "Pet details has been edited");
 		return "redirect:/owners/{ownerId}";
 	}
 
+	/**
+	 * Copy the edited details onto the pet of the given owner. The edited pet is bound
+	 * onto the pet of the owner when the owner has it, and is added to the owner
+	 * otherwise.
+	 * @param owner the owner to update
+	 * @param pet the edited pet
+	 */
+	private void updatePetDetails(Owner owner, Pet pet) {
+		Pet existingPet = owner.getPet(pet.getId());
+		if (existingPet != null) {
+			existingPet.setName(pet.getName());
+			existingPet.setBirthDate(pet.getBirthDate());
+			existingPet.setType(pet.getType());
+		}
+		else {
+			owner.addPet(pet);
+		}
+	}
+
 }
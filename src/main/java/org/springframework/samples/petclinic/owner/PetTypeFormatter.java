@@ -48,6 +48,10 @@ public class PetTypeFormatter implements Formatter<PetType> {
 		return petType.getName();
 	}
 
+	/**
+	 * Resolve the pet type of the given name from the cached pet types. A form converts
+	 * every option of its type select while it is rendered.
+	 */
 	@Override
 	public PetType parse(String text, Locale locale) throws ParseException {
 		Collection<PetType> findPetTypes = this.owners.findPetTypes();
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adjusted to the observed latency, additive increase and
+ * multiplicative decrease: a request slower than the target latency cuts the limit by
+ * {@value #BACKOFF}, a faster one raises it by the inverse of the limit if the requests
+ * in flight were using at least half of it, so by about one for as many requests as the
+ * limit allows. After a cut, the next ones wait for as many requests to complete as the
+ * limit allowed, so that a burst of slow requests, which were all in flight together,
+ * counts as one signal. The limit stays between a minimum and a maximum, so that a slow
+ * database cannot shut the route off entirely.
+ */
+final class AdaptiveLimit {
+
+	static final double BACKOFF = 0.9;
+
+	private final int min;
+
+	private final int max;
+
+	private final long latencyNanos;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private double limit;
+
+	private int samplesSinceBackoff;
+
+	private int backoffWindow;
+
+	AdaptiveLimit(int initial, int min, int max, Duration latency) {
+		if (min < 1 || max < min || initial < min || initial > max) {
+			throw new IllegalArgumentException(
+					"Invalid concurrency limit " + initial + ", expected 1 <= " + min + " <= initial <= " + max);
+		}
+		this.min = min;
+		this.max = max;
+		this.latencyNanos = latency.toNanos();
+		this.limit = initial;
+	}
+
+	/**
+	 * Start a request if the limit allows it.
+	 * @return the number of requests in flight including this one, or {@code 0} if the
+	 * request must be rejected
+	 */
+	int tryAcquire() {
+		int limit = getLimit();
+		while (true) {
+			int current = this.inFlight.get();
+			if (current >= limit) {
+				return 0;
+			}
+			if (this.inFlight.compareAndSet(current, current + 1)) {
+				return current + 1;
+			}
+		}
+	}
+
+	/**
+	 * End a request started by {@link #tryAcquire()} and adjust the limit.
+	 * @param inFlight the number returned by {@link #tryAcquire()}
+	 * @param nanos the time the request took
+	 */
+	void release(int inFlight, long nanos) {
+		this.inFlight.decrementAndGet();
+		synchronized (this) {
+			this.samplesSinceBackoff++;
+			if (nanos > this.latencyNanos) {
+				if (this.samplesSinceBackoff > this.backoffWindow) {
+					this.backoffWindow = (int) this.limit;
+					this.samplesSinceBackoff = 0;
+					this.limit = Math.max(this.min, this.limit * BACKOFF);
+				}
+			}
+			else if (inFlight * 2 >= this.limit) {
+				this.limit = Math.min(this.max, this.limit + 1.0 / this.limit);
+			}
+		}
+	}
+
+	synchronized int getLimit() {
+		return (int) this.limit;
+	}
+
+	int getInFlight() {
+		return this.inFlight.get();
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * {@code allocations} actuator endpoint, listing the routes that allocated the most since
+ * the application started, from the summaries recorded by the
+ * {@link ResourceAccountingInterceptor}. The number of routes is limited with the
+ * {@code limit} query parameter, 10 by default.
+ */
+@Endpoint(id = "allocations")
+class AllocationEndpoint {
+
+	private static final int DEFAULT_LIMIT = 10;
+
+	private final ObjectProvider<MeterRegistry> registry;
+
+	AllocationEndpoint(ObjectProvider<MeterRegistry> registry) {
+		this.registry = registry;
+	}
+
+	@ReadOperation
+	List<RouteAllocation> allocations(@Nullable Integer limit) {
+		MeterRegistry registry = this.registry.getIfAvailable();
+		if (registry == null) {
+			return List.of();
+		}
+		return registry.find(ResourceAccountingInterceptor.ALLOCATED)
+			.summaries()
+			.stream()
+			.map((allocated) -> allocation(registry, allocated))
+			.sorted(Comparator.comparingDouble(RouteAllocation::totalBytes).reversed())
+			.limit((limit != null) ? limit : DEFAULT_LIMIT)
+			.toList();
+	}
+
+	private static RouteAllocation allocation(MeterRegistry registry, DistributionSummary allocated) {
+		String uri = allocated.getId().getTag("uri");
+		DistributionSummary cpu = registry.find(ResourceAccountingInterceptor.CPU).tag("uri", uri).summary();
+		return new RouteAllocation(uri, allocated.count(), allocated.totalAmount(), allocated.mean(), allocated.max(),
+				(cpu != null) ? cpu.mean() * 1000 : 0);
+	}
+
+	/**
+	 * Allocation of the requests to a route.
+	 *
+	 * @param uri the URI pattern of the route
+	 * @param requests the number of requests
+	 * @param totalBytes the bytes allocated by all the requests
+	 * @param meanBytes the bytes allocated per request
+	 * @param maxBytes the most bytes allocated by a recent request
+	 * @param meanCpuMillis the CPU time used per request, in milliseconds
+	 */
+	record RouteAllocation(String uri, long requests, double totalBytes, double meanBytes, double maxBytes,
+			double meanCpuMillis) {
+
+	}
+
+}
@@ -25,7 +25,7 @@ import javax.cache.configuration.MutableConfiguration;
 
 /**
  * Cache configuration intended for caches providing the JCache API. This configuration
- * creates the used cache for the application and enables statistics that become
+ * creates the caches used by the application and enables statistics that become
  * accessible via JMX.
  */
 @Configuration(proxyBeanMethods = false)
@@ -34,7 +34,10 @@ class CacheConfiguration {
 
 	@Bean
 	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
-		return cm -> cm.createCache("vets", cacheConfiguration());
+		return cm -> {
+			cm.createCache("vets", cacheConfiguration());
+			cm.createCache("petTypes", cacheConfiguration());
+		};
 	}
 
 	/**
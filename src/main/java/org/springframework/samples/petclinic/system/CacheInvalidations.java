@@ -0,0 +1,220 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the caches of the instances sharing a database coherent, without a message
+ * broker. A write to cached data {@link #publish(String) publishes} the name of the cache
+ * to the {@code cache_invalidations} table, in the transaction of the write. Every
+ * instance polls the table every {@code petclinic.cache-invalidation.poll-interval} for
+ * the records it has not seen, a range scan of the primary key, and clears the named
+ * caches along with the rendered fragments whose keys start with the name of the cache,
+ * e.g. {@code vets:page:1} for the {@code vets} cache.
+ * <p>
+ * A record whose id was taken by a transaction still running when a higher id was read is
+ * picked up when that transaction commits, for up to a minute. Records older than
+ * {@code petclinic.cache-invalidation.retention} are deleted.
+ */
+@Component
+public class CacheInvalidations implements SmartInitializingSingleton, DisposableBean {
+
+	// the longest expected transaction writing cached data
+	private static final long GAP_TIMEOUT_NANOS = Duration.ofMinutes(1).toNanos();
+
+	private static final Log logger = LogFactory.getLog(CacheInvalidations.class);
+
+	private final CacheManager cacheManager;
+
+	private final FragmentCache fragments;
+
+	private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+
+	private final Duration pollInterval;
+
+	private final Duration retention;
+
+	private final ScheduledExecutorService poller;
+
+	// every record up to the watermark has been handled, and those in seen above it
+	private long watermark;
+
+	private final TreeSet<Long> seen = new TreeSet<>();
+
+	private long gapSince;
+
+	private long nextPurge;
+
+	private boolean failing;
+
+	public CacheInvalidations(CacheManager cacheManager, FragmentCache fragments,
+			ObjectProvider<JdbcTemplate> jdbcTemplate,
+			@Value("${petclinic.cache-invalidation.poll-interval:1s}") Duration pollInterval,
+			@Value("${petclinic.cache-invalidation.retention:1h}") Duration retention) {
+		this.cacheManager = cacheManager;
+		this.fragments = fragments;
+		this.jdbcTemplate = jdbcTemplate;
+		this.pollInterval = pollInterval;
+		this.retention = retention;
+		this.poller = Executors.newSingleThreadScheduledExecutor((task) -> {
+			Thread thread = new Thread(task, "cache-invalidations");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Clear the given cache on every instance, once the current transaction commits. The
+	 * data generation is incremented as well, so that cache snapshots taken before are no
+	 * longer restored.
+	 * @param cacheName the name of the cache
+	 */
+	public void publish(String cacheName) {
+		JdbcTemplate jdbcTemplate = this.jdbcTemplate.getObject();
+		jdbcTemplate.update("INSERT INTO cache_invalidations (cache_name) VALUES (?)", cacheName);
+		jdbcTemplate.update("UPDATE data_generation SET generation = generation + 1 WHERE id = 1");
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCommit() {
+					evict(cacheName);
+				}
+
+			});
+		}
+		else {
+			evict(cacheName);
+		}
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		JdbcTemplate jdbcTemplate = this.jdbcTemplate.getIfAvailable();
+		if (this.pollInterval.isZero() || jdbcTemplate == null) {
+			return;
+		}
+		try {
+			this.watermark = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cache_invalidations",
+					Long.class);
+		}
+		catch (DataAccessException ex) {
+			logger.warn("Cannot read the cache invalidations, caches are not kept coherent with other instances: "
+					+ ex.getMessage());
+			return;
+		}
+		this.nextPurge = System.nanoTime();
+		this.poller.scheduleWithFixedDelay(this::poll, this.pollInterval.toMillis(), this.pollInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy() {
+		this.poller.shutdownNow();
+	}
+
+	void poll() {
+		try {
+			List<Invalidation> invalidations = this.jdbcTemplate.getObject()
+				.query("SELECT id, cache_name FROM cache_invalidations WHERE id > ? ORDER BY id",
+						(rs, row) -> new Invalidation(rs.getLong(1), rs.getString(2)), this.watermark);
+			invalidations.stream()
+				.filter((invalidation) -> this.seen.add(invalidation.id()))
+				.map(Invalidation::cacheName)
+				.distinct()
+				.forEach(this::evict);
+			advanceWatermark();
+			purge();
+			this.failing = false;
+		}
+		catch (DataAccessException ex) {
+			if (!this.failing) {
+				logger.warn("Cannot poll the cache invalidations: " + ex.getMessage());
+			}
+			this.failing = true;
+		}
+		catch (RuntimeException ex) {
+			// an exception thrown to the executor would cancel the polling
+			if (!this.failing) {
+				logger.warn("Cannot apply the cache invalidations", ex);
+			}
+			this.failing = true;
+		}
+	}
+
+	private void advanceWatermark() {
+		while (!this.seen.isEmpty() && this.seen.first() == this.watermark + 1) {
+			this.watermark = this.seen.pollFirst();
+		}
+		if (this.seen.isEmpty()) {
+			this.gapSince = 0;
+		}
+		else if (this.gapSince == 0) {
+			this.gapSince = System.nanoTime();
+		}
+		else if (System.nanoTime() - this.gapSince > GAP_TIMEOUT_NANOS) {
+			// the missing ids were rolled back, or skipped by the id generator
+			this.watermark = this.seen.first() - 1;
+			this.gapSince = 0;
+			advanceWatermark();
+		}
+	}
+
+	private void purge() {
+		long now = System.nanoTime();
+		if (now - this.nextPurge >= 0) {
+			this.jdbcTemplate.getObject()
+				.update("DELETE FROM cache_invalidations WHERE created_at < ?",
+						Timestamp.from(Instant.now().minus(this.retention)));
+			this.nextPurge = now + this.retention.toNanos() / 10;
+		}
+	}
+
+	private void evict(String cacheName) {
+		Cache cache = this.cacheManager.getCache(cacheName);
+		if (cache != null) {
+			cache.clear();
+		}
+		this.fragments.evict(cacheName + ":");
+	}
+
+	private record Invalidation(long id, String cacheName) {
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * File holding the entries of some caches, written with the data generation they were
+ * loaded at. The file starts with a magic number and the generation, followed by the
+ * deflated serialization of the entries by cache name. It is read through a memory
+ * mapping, and only if its generation is the expected one, so that a snapshot taken
+ * before the data changed is never restored. Deserialization is limited to the classes
+ * that the application caches.
+ */
+final class CacheSnapshot {
+
+	private static final int MAGIC = 0x50434353;
+
+	private static final ObjectInputFilter FILTER = ObjectInputFilter.Config
+		.createFilter("maxdepth=32;java.lang.*;java.util.*;java.time.*;org.springframework.samples.petclinic.**;"
+				+ "org.springframework.cache.interceptor.SimpleKey;org.springframework.cache.support.NullValue;"
+				+ "org.springframework.data.domain.*;org.hibernate.collection.spi.*;!*");
+
+	private final Path file;
+
+	/**
+	 * Create a snapshot stored in the given file.
+	 * @param file the file
+	 */
+	CacheSnapshot(Path file) {
+		this.file = file;
+	}
+
+	Path getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Write the given entries, replacing the file atomically.
+	 * @param generation the data generation the entries were loaded at
+	 * @param caches the entries by cache name
+	 * @throws IOException if the file cannot be written
+	 */
+	void write(long generation, Map<String, Map<Object, Object>> caches) throws IOException {
+		Path directory = this.file.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, this.file.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+				DataOutputStream header = new DataOutputStream(output);
+				header.writeInt(MAGIC);
+				header.writeLong(generation);
+				try (ObjectOutputStream entries = new ObjectOutputStream(new DeflaterOutputStream(output))) {
+					entries.writeObject(new LinkedHashMap<>(caches));
+				}
+			}
+			Files.move(temporary, this.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Read the entries, if they were written at the given generation.
+	 * @param generation the current data generation
+	 * @return the entries by cache name, or {@code null} if there is no snapshot or if it
+	 * was written at another generation
+	 * @throws IOException if the file cannot be read
+	 * @throws ClassNotFoundException if a class of the entries is not found
+	 */
+	@SuppressWarnings("unchecked")
+	Map<String, Map<Object, Object>> read(long generation) throws IOException, ClassNotFoundException {
+		if (!Files.exists(this.file)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < Integer.BYTES + Long.BYTES || buffer.getInt() != MAGIC
+					|| buffer.getLong() != generation) {
+				return null;
+			}
+			try (ObjectInputStream entries = new ObjectInputStream(
+					new InflaterInputStream(new ByteBufferInputStream(buffer)))) {
+				entries.setObjectInputFilter(FILTER);
+				return (Map<String, Map<Object, Object>>) entries.readObject();
+			}
+		}
+	}
+
+	/**
+	 * Delete the file, if any.
+	 * @throws IOException if the file cannot be deleted
+	 */
+	void delete() throws IOException {
+		Files.deleteIfExists(this.file);
+	}
+
+	private static final class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!this.buffer.hasRemaining()) {
+				return -1;
+			}
+			int count = Math.min(length, this.buffer.remaining());
+			this.buffer.get(bytes, offset, count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return this.buffer.remaining();
+		}
+
+	}
+
+}
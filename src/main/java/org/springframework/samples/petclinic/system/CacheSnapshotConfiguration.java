@@ -0,0 +1,44 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Keeps the caches listed by {@code petclinic.cache-snapshot.caches} warm across
+ * restarts, in the file {@code petclinic.cache-snapshot.file}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.cache-snapshot.enabled", havingValue = "true")
+class CacheSnapshotConfiguration {
+
+	@Bean
+	CacheSnapshotter cacheSnapshotter(@Value("${petclinic.cache-snapshot.file}") Path file,
+			@Value("${petclinic.cache-snapshot.caches:vets}") List<String> cacheNames, CacheManager cacheManager,
+			JdbcTemplate jdbcTemplate) {
+		return new CacheSnapshotter(new CacheSnapshot(file), cacheManager, jdbcTemplate, cacheNames);
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Restores the entries of some caches from a {@link CacheSnapshot} once all singletons
+ * are created, before the web server is started, and writes them back when the
+ * application context is closed, after the web server has stopped.
+ * <p>
+ * Snapshots are tied to the {@code generation} of the {@code data_generation} table,
+ * which is incremented whenever the cached reference data (vets, specialties, pet types)
+ * changes outside of the application. A snapshot of another generation is not restored,
+ * and none is written if the generation changed while the application was running, as the
+ * entries may then have been loaded before the change.
+ */
+class CacheSnapshotter implements SmartInitializingSingleton, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(CacheSnapshotter.class);
+
+	private final CacheSnapshot snapshot;
+
+	private final CacheManager cacheManager;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final List<String> cacheNames;
+
+	private long generation;
+
+	CacheSnapshotter(CacheSnapshot snapshot, CacheManager cacheManager, JdbcTemplate jdbcTemplate,
+			List<String> cacheNames) {
+		this.snapshot = snapshot;
+		this.cacheManager = cacheManager;
+		this.jdbcTemplate = jdbcTemplate;
+		this.cacheNames = List.copyOf(cacheNames);
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		restore();
+	}
+
+	@Override
+	public void destroy() {
+		write();
+	}
+
+	/**
+	 * Put the entries of the snapshot in the caches, if it is of the current generation.
+	 * @return the number of entries restored
+	 */
+	int restore() {
+		long start = System.nanoTime();
+		this.generation = currentGeneration();
+		Map<String, Map<Object, Object>> caches;
+		try {
+			caches = this.snapshot.read(this.generation);
+		}
+		catch (IOException | ClassNotFoundException | RuntimeException ex) {
+			logger.warn("Ignoring unreadable cache snapshot " + this.snapshot.getFile(), ex);
+			return 0;
+		}
+		if (caches == null) {
+			logger.info("No cache snapshot of data generation " + this.generation + " in " + this.snapshot.getFile());
+			return 0;
+		}
+		int restored = 0;
+		for (String name : this.cacheNames) {
+			Cache cache = this.cacheManager.getCache(name);
+			Map<Object, Object> entries = caches.get(name);
+			if (cache != null && entries != null) {
+				entries.forEach(cache::put);
+				restored += entries.size();
+			}
+		}
+		logger.info("Restored " + restored + " entries of caches " + this.cacheNames + " from "
+				+ this.snapshot.getFile() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+		return restored;
+	}
+
+	/**
+	 * Write the entries of the caches to the snapshot, unless the generation changed
+	 * since they were restored.
+	 * @return the number of entries written
+	 */
+	int write() {
+		try {
+			long current = currentGeneration();
+			if (current != this.generation) {
+				logger.info("Data generation changed from " + this.generation + " to " + current
+						+ ", not writing cache snapshot");
+				this.snapshot.delete();
+				return 0;
+			}
+			Map<String, Map<Object, Object>> caches = new LinkedHashMap<>();
+			int written = 0;
+			for (String name : this.cacheNames) {
+				Map<Object, Object> entries = entries(this.cacheManager.getCache(name));
+				caches.put(name, entries);
+				written += entries.size();
+			}
+			this.snapshot.write(this.generation, caches);
+			logger
+				.info("Wrote " + written + " entries of caches " + this.cacheNames + " to " + this.snapshot.getFile());
+			return written;
+		}
+		catch (IOException | RuntimeException ex) {
+			logger.warn("Failed to write cache snapshot " + this.snapshot.getFile(), ex);
+			return 0;
+		}
+	}
+
+	private long currentGeneration() {
+		Long generation = this.jdbcTemplate.queryForObject("SELECT generation FROM data_generation WHERE id = 1",
+				Long.class);
+		return (generation != null) ? generation : 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<Object, Object> entries(Cache cache) {
+		Object nativeCache = (cache != null) ? cache.getNativeCache() : null;
+		if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+			return new HashMap<>(caffeine.asMap());
+		}
+		if (nativeCache instanceof ConcurrentMap<?, ?> map) {
+			return new HashMap<>(map);
+		}
+		Map<Object, Object> entries = new HashMap<>();
+		if (nativeCache instanceof javax.cache.Cache<?, ?> jcache) {
+			for (javax.cache.Cache.Entry<?, ?> entry : (javax.cache.Cache<Object, Object>) jcache) {
+				entries.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return entries;
+	}
+
+}
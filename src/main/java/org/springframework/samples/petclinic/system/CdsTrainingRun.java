@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Training run for a Class Data Sharing archive. When {@code petclinic.cds.training} is
+ * {@code true}, the application sends one request to each of its main routes once it is
+ * ready, so that the classes used to handle, render and serialize them are loaded, and
+ * then exits. Started with {@code -XX:ArchiveClassesAtExit=application.jsa}, the JVM
+ * writes these classes to the archive, which later starts load with
+ * {@code -XX:SharedArchiveFile=application.jsa} instead of parsing and verifying them
+ * again.
+ * <p>
+ * The property is read at runtime rather than used as a condition so that the training
+ * run also works with ahead-of-time processed bean definitions.
+ */
+@Component
+class CdsTrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+	private static final Log logger = LogFactory.getLog(CdsTrainingRun.class);
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		if (!event.getApplicationContext()
+			.getEnvironment()
+			.getProperty("petclinic.cds.training", Boolean.class, false)) {
+			return;
+		}
+		String port = event.getApplicationContext().getEnvironment().getProperty("local.server.port");
+		HttpClient client = HttpClient.newHttpClient();
+		for (SyntheticRequest request : SyntheticRequest.ROUTES) {
+			send(client, "http://localhost:" + port, request);
+		}
+		logger.info("CDS training run completed, exiting");
+		System.exit(SpringApplication.exit(event.getApplicationContext()));
+	}
+
+	private static void send(HttpClient client, String base, SyntheticRequest request) {
+		try {
+			int status = request.send(client, base);
+			if (logger.isDebugEnabled()) {
+				logger.debug(request.method() + " " + request.path() + " returned " + status);
+			}
+		}
+		catch (IOException ex) {
+			logger.warn("Training request " + request.method() + " " + request.path() + " failed", ex);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
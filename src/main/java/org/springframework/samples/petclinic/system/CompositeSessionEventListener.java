@@ -0,0 +1,225 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * The session event listener of the application, as Hibernate supports a single one.
+ * Dispatches every event to the listeners of the enabled features: the statements are
+ * always counted for the {@link RequestStatistics}, the flushes are always recorded as
+ * {@link FlushEvent Flight Recorder events}, and the {@link WithServerTiming} variant
+ * also times the statements and flushes for the {@link ServerTimingFilter}.
+ * <p>
+ * Hibernate creates one instance per session from the class name set by
+ * {@link SessionEventListenerConfiguration}, which requires the classes and their
+ * constructors to be public. Each variant is a class of its own, so that applications
+ * with different settings in the same JVM do not share any state.
+ */
+public class CompositeSessionEventListener implements SessionEventListener {
+
+	private final SessionEventListener[] listeners;
+
+	public CompositeSessionEventListener() {
+		this(new RequestCountingSessionEventListener(), new FlightRecorderSessionEventListener());
+	}
+
+	CompositeSessionEventListener(SessionEventListener... listeners) {
+		this.listeners = listeners;
+	}
+
+	@Override
+	public void transactionCompletion(boolean successful) {
+		for (SessionEventListener listener : this.listeners) {
+			listener.transactionCompletion(successful);
+		}
+	}
+
+	@Override
+	public void jdbcConnectionAcquisitionStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.jdbcConnectionAcquisitionStart();
+		}
+	}
+
+	@Override
+	public void jdbcConnectionAcquisitionEnd() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.jdbcConnectionAcquisitionEnd();
+		}
+	}
+
+	@Override
+	public void jdbcConnectionReleaseStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.jdbcConnectionReleaseStart();
+		}
+	}
+
+	@Override
+	public void jdbcConnectionReleaseEnd() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.jdbcConnectionReleaseEnd();
+		}
+	}
+
+	@Override
+	public void jdbcPrepareStatementStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.jdbcPrepareStatementStart();
+		}
+	}
+
+	@Override
+	public void jdbcPrepareStatementEnd() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.jdbcPrepareStatementEnd();
+		}
+	}
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.jdbcExecuteStatementStart();
+		}
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.jdbcExecuteStatementEnd();
+		}
+	}
+
+	@Override
+	public void jdbcExecuteBatchStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.jdbcExecuteBatchStart();
+		}
+	}
+
+	@Override
+	public void jdbcExecuteBatchEnd() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.jdbcExecuteBatchEnd();
+		}
+	}
+
+	@Override
+	public void cachePutStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.cachePutStart();
+		}
+	}
+
+	@Override
+	public void cachePutEnd() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.cachePutEnd();
+		}
+	}
+
+	@Override
+	public void cacheGetStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.cacheGetStart();
+		}
+	}
+
+	@Override
+	public void cacheGetEnd(boolean hit) {
+		for (SessionEventListener listener : this.listeners) {
+			listener.cacheGetEnd(hit);
+		}
+	}
+
+	@Override
+	public void flushStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.flushStart();
+		}
+	}
+
+	@Override
+	public void flushEnd(int numberOfEntities, int numberOfCollections) {
+		for (SessionEventListener listener : this.listeners) {
+			listener.flushEnd(numberOfEntities, numberOfCollections);
+		}
+	}
+
+	@Override
+	public void prePartialFlushStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.prePartialFlushStart();
+		}
+	}
+
+	@Override
+	public void prePartialFlushEnd() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.prePartialFlushEnd();
+		}
+	}
+
+	@Override
+	public void partialFlushStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.partialFlushStart();
+		}
+	}
+
+	@Override
+	public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+		for (SessionEventListener listener : this.listeners) {
+			listener.partialFlushEnd(numberOfEntities, numberOfCollections);
+		}
+	}
+
+	@Override
+	public void dirtyCalculationStart() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.dirtyCalculationStart();
+		}
+	}
+
+	@Override
+	public void dirtyCalculationEnd(boolean dirty) {
+		for (SessionEventListener listener : this.listeners) {
+			listener.dirtyCalculationEnd(dirty);
+		}
+	}
+
+	@Override
+	public void end() {
+		for (SessionEventListener listener : this.listeners) {
+			listener.end();
+		}
+	}
+
+	/**
+	 * The listener used when {@code petclinic.server-timing.enabled} is {@code true}.
+	 */
+	public static class WithServerTiming extends CompositeSessionEventListener {
+
+		public WithServerTiming() {
+			super(new RequestCountingSessionEventListener(), new FlightRecorderSessionEventListener(),
+					new TimingSessionEventListener());
+		}
+
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limits the concurrent requests of each route with a {@link ConcurrencyLimitFilter}. The
+ * limit of a route, e.g. {@code search}, starts at
+ * {@code petclinic.concurrency-limit.search.initial} and adapts between {@code min} and
+ * {@code max} to keep its requests under {@code latency}. Disabled with
+ * {@code petclinic.concurrency-limit.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+class ConcurrencyLimitConfiguration {
+
+	@Bean
+	ConcurrencyLimitFilter concurrencyLimitFilter(Environment environment, MeterRegistry registry) {
+		return new ConcurrencyLimitFilter(
+				limit(environment, ConcurrencyLimitFilter.SEARCH, 10, 2, 50, Duration.ofMillis(500)),
+				limit(environment, ConcurrencyLimitFilter.DETAIL, 20, 8, 200, Duration.ofMillis(250)), registry);
+	}
+
+	private static AdaptiveLimit limit(Environment environment, String route, int initial, int min, int max,
+			Duration latency) {
+		String prefix = "petclinic.concurrency-limit." + route + ".";
+		return new AdaptiveLimit(environment.getProperty(prefix + "initial", Integer.class, initial),
+				environment.getProperty(prefix + "min", Integer.class, min),
+				environment.getProperty(prefix + "max", Integer.class, max),
+				environment.getProperty(prefix + "latency", Duration.class, latency));
+	}
+
+}
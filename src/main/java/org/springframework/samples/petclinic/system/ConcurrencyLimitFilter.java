@@ -0,0 +1,198 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds the requests beyond the {@link AdaptiveLimit} of their route with a
+ * {@code 503 Service Unavailable} and a {@code Retry-After} header, before they reach the
+ * handler and the database, instead of letting them queue until they time out. Routes are
+ * limited separately, so that a flood of owner searches does not hold up the owner pages:
+ * <ul>
+ * <li>{@code search}: the owner search and export, and GraphQL queries, which may read
+ * many owners</li>
+ * <li>{@code detail}: all other pages and resources of the application</li>
+ * </ul>
+ * Static resources and the actuator endpoints are not limited. The limits, the requests
+ * in flight and the rejections are published as the {@code petclinic.concurrency.limit},
+ * {@code petclinic.concurrency.in-flight} and {@code petclinic.concurrency.rejected}
+ * meters, tagged with the route.
+ */
+class ConcurrencyLimitFilter extends OncePerRequestFilter implements Ordered {
+
+	/**
+	 * Order of the filter, right after the statistics of the request so that rejected
+	 * requests are still observed.
+	 */
+	static final int ORDER = RequestStatisticsFilter.ORDER + 1;
+
+	static final String SEARCH = "search";
+
+	static final String DETAIL = "detail";
+
+	// a rejected client retries after the requests in flight are likely to have completed
+	private static final String RETRY_AFTER_SECONDS = "1";
+
+	private final Map<String, AdaptiveLimit> limits;
+
+	private final Map<String, Counter> rejections;
+
+	ConcurrencyLimitFilter(AdaptiveLimit search, AdaptiveLimit detail, MeterRegistry registry) {
+		this.limits = Map.of(SEARCH, search, DETAIL, detail);
+		this.rejections = Map.of(SEARCH, rejections(SEARCH, registry), DETAIL, rejections(DETAIL, registry));
+		this.limits.forEach((route, limit) -> {
+			Gauge.builder("petclinic.concurrency.limit", limit, AdaptiveLimit::getLimit)
+				.description("Concurrency limit of the route")
+				.tag("route", route)
+				.register(registry);
+			Gauge.builder("petclinic.concurrency.in-flight", limit, AdaptiveLimit::getInFlight)
+				.description("Requests of the route in flight")
+				.tag("route", route)
+				.register(registry);
+		});
+	}
+
+	private static Counter rejections(String route, MeterRegistry registry) {
+		return Counter.builder("petclinic.concurrency.rejected")
+			.description("Requests of the route rejected by its concurrency limit")
+			.tag("route", route)
+			.register(registry);
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return route(request) == null;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String route = route(request);
+		AdaptiveLimit limit = this.limits.get(route);
+		int inFlight = limit.tryAcquire();
+		if (inFlight == 0) {
+			this.rejections.get(route).increment();
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+			response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+			response.getWriter().write("Too many concurrent requests, retry later");
+			return;
+		}
+		long start = System.nanoTime();
+		boolean async = false;
+		try {
+			filterChain.doFilter(request, response);
+			if (request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new Release(limit, inFlight, start));
+				async = true;
+			}
+		}
+		finally {
+			if (!async) {
+				limit.release(inFlight, System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * Return the route of the given request.
+	 * @param request the request
+	 * @return the route, or {@code null} if the request is not limited
+	 */
+	static String route(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		if (path.startsWith("/resources/") || path.startsWith("/webjars/") || path.startsWith("/actuator")
+				|| path.equals("/error") || path.equals("/favicon.ico")) {
+			return null;
+		}
+		if ((path.equals("/owners") && "GET".equals(request.getMethod())) || path.equals("/owners/export")
+				|| path.startsWith("/graphql")) {
+			return SEARCH;
+		}
+		return DETAIL;
+	}
+
+	/**
+	 * Releases the limit once an asynchronous request completes.
+	 */
+	private static final class Release implements AsyncListener {
+
+		private final AdaptiveLimit limit;
+
+		private final int inFlight;
+
+		private final long start;
+
+		private boolean released;
+
+		Release(AdaptiveLimit limit, int inFlight, long start) {
+			this.limit = limit;
+			this.inFlight = inFlight;
+			this.start = start;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			release();
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			release();
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			release();
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+		}
+
+		private synchronized void release() {
+			if (!this.released) {
+				this.released = true;
+				this.limit.release(this.inFlight, System.nanoTime() - this.start);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.FlashMap;
+import org.springframework.web.servlet.support.AbstractFlashMapManager;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Keeps the flash attributes of a redirect in a cookie instead of the HTTP session, so
+ * that any instance can serve the page the client is redirected to and no session is
+ * created. The cookie holds the flash maps as JSON, signed with HMAC-SHA256: a cookie
+ * that was tampered with, or signed with another key, is ignored. Attributes must be
+ * strings, numbers or booleans, such as the messages shown after a form is saved.
+ * <p>
+ * The cookie is limited to {@value #MAX_COOKIE_LENGTH} characters, the oldest flash maps
+ * are dropped beyond that. It expires with the flash maps, after
+ * {@link #getFlashMapTimeout()} seconds.
+ */
+class CookieFlashMapManager extends AbstractFlashMapManager {
+
+	static final String COOKIE = "FLASH";
+
+	// browsers accept at least 4096 bytes per cookie, including its name and attributes
+	static final int MAX_COOKIE_LENGTH = 4000;
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private static final Log logger = LogFactory.getLog(CookieFlashMapManager.class);
+
+	private static final TypeReference<List<Map<String, Object>>> FLASH_MAPS = new TypeReference<>() {
+	};
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private final SecretKeySpec key;
+
+	CookieFlashMapManager(byte[] secret) {
+		this.key = new SecretKeySpec(secret, ALGORITHM);
+	}
+
+	@Override
+	protected List<FlashMap> retrieveFlashMaps(HttpServletRequest request) {
+		Cookie[] cookies = request.getCookies();
+		if (cookies != null) {
+			for (Cookie cookie : cookies) {
+				if (COOKIE.equals(cookie.getName())) {
+					return decode(cookie.getValue());
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	protected void updateFlashMaps(List<FlashMap> flashMaps, HttpServletRequest request, HttpServletResponse response) {
+		String value = "";
+		List<FlashMap> kept = new ArrayList<>(flashMaps);
+		while (!kept.isEmpty()) {
+			value = encode(kept);
+			if (value.length() <= MAX_COOKIE_LENGTH) {
+				break;
+			}
+			logger.warn("Dropping flash attributes " + kept.get(0).keySet() + " that do not fit in the "
+					+ MAX_COOKIE_LENGTH + " characters of the flash cookie");
+			kept.remove(0);
+			value = "";
+		}
+		Cookie cookie = new Cookie(COOKIE, value);
+		cookie.setPath("/");
+		cookie.setMaxAge(value.isEmpty() ? 0 : getFlashMapTimeout());
+		cookie.setHttpOnly(true);
+		cookie.setSecure(request.isSecure());
+		cookie.setAttribute("SameSite", "Lax");
+		response.addCookie(cookie);
+	}
+
+	@Override
+	protected Object getFlashMapsMutex(HttpServletRequest request) {
+		// the flash maps travel with the requests of the client, there is nothing to
+		// share
+		return null;
+	}
+
+	private String encode(List<FlashMap> flashMaps) {
+		List<Map<String, Object>> values = new ArrayList<>();
+		for (FlashMap flashMap : flashMaps) {
+			flashMap.forEach((name, attribute) -> {
+				if (!(attribute instanceof String || attribute instanceof Number || attribute instanceof Boolean)) {
+					throw new IllegalArgumentException("Flash attribute '" + name + "' of type "
+							+ attribute.getClass().getName() + " cannot be kept in a cookie");
+				}
+			});
+			Map<String, Object> value = new LinkedHashMap<>();
+			value.put("path", flashMap.getTargetRequestPath());
+			value.put("params", flashMap.getTargetRequestParams());
+			value.put("expires", flashMap.getExpirationTime());
+			value.put("attributes", new LinkedHashMap<>(flashMap));
+			values.add(value);
+		}
+		try {
+			String payload = Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString(this.mapper.writeValueAsBytes(values));
+			return payload + "." + sign(payload);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Cannot write the flash maps", ex);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<FlashMap> decode(String value) {
+		int dot = value.indexOf('.');
+		if (dot < 0 || !MessageDigest.isEqual(sign(value.substring(0, dot)).getBytes(StandardCharsets.US_ASCII),
+				value.substring(dot + 1).getBytes(StandardCharsets.US_ASCII))) {
+			logger.debug("Ignoring a flash cookie with an invalid signature");
+			return null;
+		}
+		try {
+			List<FlashMap> flashMaps = new ArrayList<>();
+			for (Map<String, Object> values : this.mapper
+				.readValue(Base64.getUrlDecoder().decode(value.substring(0, dot)), FLASH_MAPS)) {
+				FlashMap flashMap = new FlashMap();
+				flashMap.setTargetRequestPath((String) values.get("path"));
+				Map<String, List<String>> params = (Map<String, List<String>>) values.get("params");
+				if (params != null) {
+					MultiValueMap<String, String> targetParams = new LinkedMultiValueMap<>(params);
+					flashMap.addTargetRequestParams(targetParams);
+				}
+				flashMap.setExpirationTime(((Number) values.get("expires")).longValue());
+				flashMap.putAll((Map<String, Object>) values.get("attributes"));
+				flashMaps.add(flashMap);
+			}
+			return flashMaps;
+		}
+		catch (IOException | RuntimeException ex) {
+			logger.debug("Ignoring an unreadable flash cookie", ex);
+			return null;
+		}
+	}
+
+	private String sign(String payload) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(this.key);
+			return Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+		}
+		catch (GeneralSecurityException ex) {
+			throw new IllegalStateException("Cannot sign the flash cookie", ex);
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * File snapshot of an H2 database populated by SQL scripts. The snapshot is built once,
+ * by running the scripts against a new file database, and stored under a name derived
+ * from a hash of the scripts and of the H2 version, so that changing a script or
+ * upgrading H2 builds a new one. Each {@link #restore() restore} copies the snapshot to a
+ * new file, deleted when the JVM exits, so that the snapshot itself is never written to
+ * and that each application gets its own database, as it would with an in-memory one.
+ */
+final class DatabaseSnapshot {
+
+	static final String USERNAME = "sa";
+
+	private static final String SUFFIX = ".mv.db";
+
+	private final Path directory;
+
+	private final List<Resource> scripts;
+
+	/**
+	 * Create a snapshot of the database populated by the given scripts.
+	 * @param directory the directory of the snapshots and of their copies
+	 * @param scripts the scripts, in the order they are run
+	 */
+	DatabaseSnapshot(Path directory, List<Resource> scripts) {
+		this.directory = directory;
+		this.scripts = List.copyOf(scripts);
+	}
+
+	/**
+	 * Return the file of the snapshot, which may not have been built yet.
+	 * @return the file
+	 * @throws IOException if a script cannot be read
+	 */
+	Path file() throws IOException {
+		return this.directory.resolve("petclinic-" + key() + SUFFIX);
+	}
+
+	/**
+	 * Copy the snapshot, building it first if it does not exist, and return the URL of
+	 * the copy.
+	 * @return the JDBC URL of the copy
+	 * @throws IOException if the snapshot cannot be built or copied
+	 * @throws SQLException if a script fails
+	 */
+	String restore() throws IOException, SQLException {
+		Path snapshot = file();
+		if (!Files.exists(snapshot)) {
+			build(snapshot);
+		}
+		Path copy = Files.createTempFile(this.directory, "petclinic-copy-", SUFFIX);
+		copy.toFile().deleteOnExit();
+		Files.copy(snapshot, copy, StandardCopyOption.REPLACE_EXISTING);
+		return url(copy);
+	}
+
+	private void build(Path snapshot) throws IOException, SQLException {
+		Files.createDirectories(this.directory);
+		// built under another name and then renamed, so that concurrent starts never
+		// copy a snapshot that is still being written
+		Path building = this.directory.resolve("petclinic-building-" + UUID.randomUUID() + SUFFIX);
+		try {
+			try (Connection connection = DriverManager.getConnection(url(building), USERNAME, "")) {
+				new ResourceDatabasePopulator(this.scripts.toArray(Resource[]::new)).populate(connection);
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("SHUTDOWN COMPACT");
+				}
+			}
+			Files.move(building, snapshot, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(building);
+		}
+	}
+
+	private String key() throws IOException {
+		MessageDigest digest = sha256();
+		digest.update(h2Version().getBytes(StandardCharsets.UTF_8));
+		for (Resource script : this.scripts) {
+			try (InputStream content = script.getInputStream()) {
+				digest.update(content.readAllBytes());
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest(), 0, 8);
+	}
+
+	private static String h2Version() {
+		try {
+			Driver driver = DriverManager.getDriver("jdbc:h2:mem:");
+			String version = driver.getClass().getPackage().getImplementationVersion();
+			return (version != null) ? version : driver.getMajorVersion() + "." + driver.getMinorVersion();
+		}
+		catch (SQLException ex) {
+			throw new IllegalStateException("H2 is not on the classpath", ex);
+		}
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static String url(Path file) {
+		String name = file.toAbsolutePath().toString();
+		// closed by the connection pool on shutdown rather than by the H2 shutdown hook
+		return "jdbc:h2:file:" + name.substring(0, name.length() - SUFFIX.length()) + ";DB_CLOSE_ON_EXIT=FALSE";
+	}
+
+}
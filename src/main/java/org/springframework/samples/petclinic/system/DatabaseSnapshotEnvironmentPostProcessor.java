@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * Starts the embedded H2 database from a {@link DatabaseSnapshot} instead of running
+ * {@code schema.sql} and {@code data.sql}, when
+ * {@code petclinic.database.snapshot.enabled} is {@code true}. The first start builds the
+ * snapshot in {@code petclinic.database.snapshot.directory} and later ones only copy it,
+ * then point {@code spring.datasource.url} at the copy and disable the SQL
+ * initialization. Databases configured with a URL, such as the MySQL and PostgreSQL ones,
+ * are left alone: their scripts are idempotent and run against the existing data.
+ */
+class DatabaseSnapshotEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+	private static final String SCHEMA_LOCATIONS = "spring.sql.init.schema-locations";
+
+	private static final String DATA_LOCATIONS = "spring.sql.init.data-locations";
+
+	private final Log logger;
+
+	DatabaseSnapshotEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+		this.logger = logFactory.getLog(DatabaseSnapshotEnvironmentPostProcessor.class);
+	}
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		if (!environment.getProperty("petclinic.database.snapshot.enabled", Boolean.class, false)
+				|| environment.containsProperty("spring.datasource.url")
+				|| !"h2".equals(environment.getProperty("database"))
+				|| "never".equals(environment.getProperty("spring.sql.init.mode"))) {
+			return;
+		}
+		Path directory = Path.of(environment.getRequiredProperty("petclinic.database.snapshot.directory"));
+		ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(application.getClassLoader());
+		Binder binder = Binder.get(environment);
+		List<Resource> scripts = new ArrayList<>();
+		for (String property : List.of(SCHEMA_LOCATIONS, DATA_LOCATIONS)) {
+			for (String location : binder.bind(property, Bindable.listOf(String.class)).orElse(List.of())) {
+				scripts.addAll(resolve(resolver, location));
+			}
+		}
+		long start = System.nanoTime();
+		DatabaseSnapshot snapshot = new DatabaseSnapshot(directory, scripts);
+		try {
+			String url = snapshot.restore();
+			this.logger.info("Restored database snapshot " + snapshot.file() + " to " + url + " in "
+					+ (System.nanoTime() - start) / 1_000_000 + " ms");
+			environment.getPropertySources()
+				.addFirst(new MapPropertySource("databaseSnapshot",
+						Map.of("spring.datasource.url", url, "spring.datasource.username", DatabaseSnapshot.USERNAME,
+								"spring.datasource.password", "", "spring.sql.init.mode", "never")));
+		}
+		catch (IOException | SQLException ex) {
+			throw new IllegalStateException("Failed to restore database snapshot in " + directory, ex);
+		}
+	}
+
+	private static List<Resource> resolve(ResourcePatternResolver resolver, String location) {
+		String pattern = location.startsWith("optional:") ? location.substring("optional:".length()) : location;
+		try {
+			return Arrays.stream(resolver.getResources(pattern)).filter(Resource::exists).toList();
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to resolve " + location, ex);
+		}
+	}
+
+}
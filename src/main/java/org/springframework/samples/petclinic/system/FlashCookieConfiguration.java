@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.FlashMapManager;
+
+/**
+ * Replaces the session based {@link FlashMapManager} of Spring MVC with a
+ * {@link CookieFlashMapManager}, so that saving a form creates no HTTP session and the
+ * page it redirects to can be served by any instance. The cookies are signed with
+ * {@code petclinic.flash-cookie.secret}, which must be the same on every instance.
+ * Without a secret, a random one is used and the messages only survive redirects served
+ * by the same instance. Disabled with {@code petclinic.flash-cookie.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.flash-cookie.enabled", havingValue = "true", matchIfMissing = true)
+class FlashCookieConfiguration {
+
+	private static final Log logger = LogFactory.getLog(FlashCookieConfiguration.class);
+
+	@Bean
+	static BeanPostProcessor flashMapManagerPostProcessor(@Value("${petclinic.flash-cookie.secret:}") String secret) {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof FlashMapManager && DispatcherServlet.FLASH_MAP_MANAGER_BEAN_NAME.equals(beanName)) {
+					return new CookieFlashMapManager(key(secret));
+				}
+				return bean;
+			}
+
+		};
+	}
+
+	private static byte[] key(String secret) {
+		if (StringUtils.hasText(secret)) {
+			return secret.getBytes(StandardCharsets.UTF_8);
+		}
+		logger.warn(
+				"No petclinic.flash-cookie.secret set, flash messages only survive redirects served by this instance");
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		return key;
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Emits Flight Recorder events for the handling of requests ({@link HandlerEvent}), the
+ * rendering of views ({@link RenderEvent}), repository invocations
+ * ({@link RepositoryEvent}) and Hibernate flushes ({@link FlushEvent}, recorded by the
+ * {@link CompositeSessionEventListener}), so that a continuous recording can tie GC
+ * pauses, lock contention or CPU samples to a route and an owner. The events are disabled
+ * by default and enabled by the {@code jfr/petclinic.jfc} settings, for example with
+ * {@code -XX:StartFlightRecording:settings=default,settings=src/main/resources/jfr/petclinic.jfc}.
+ */
+@Configuration(proxyBeanMethods = false)
+class FlightRecorderConfiguration implements WebMvcConfigurer {
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new FlightRecorderInterceptor());
+	}
+
+	@Bean
+	static BeanPostProcessor repositoryEventPostProcessor() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+					factoryBean.addRepositoryFactoryCustomizer((factory) -> factory.addRepositoryProxyPostProcessor(
+							(proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+									new RepositoryEventInterceptor(repositoryInformation.getRepositoryInterface()))));
+				}
+				return bean;
+			}
+
+		};
+	}
+
+	private static final class RepositoryEventInterceptor implements MethodInterceptor {
+
+		private final String repository;
+
+		RepositoryEventInterceptor(Class<?> repositoryInterface) {
+			this.repository = repositoryInterface.getSimpleName();
+		}
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			RepositoryEvent event = new RepositoryEvent();
+			if (!event.isEnabled()) {
+				return invocation.proceed();
+			}
+			event.begin();
+			try {
+				return invocation.proceed();
+			}
+			catch (Throwable ex) {
+				event.failed = true;
+				throw ex;
+			}
+			finally {
+				if (event.shouldCommit()) {
+					event.repository = this.repository;
+					event.method = invocation.getMethod().getName();
+					event.commit();
+				}
+			}
+		}
+
+	}
+
+}
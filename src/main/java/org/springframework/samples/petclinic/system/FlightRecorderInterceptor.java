@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.Map;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records the handling of each request as a {@link HandlerEvent} and the rendering of its
+ * view as a {@link RenderEvent}. While the events are disabled the only cost is the check
+ * of their enablement.
+ */
+class FlightRecorderInterceptor implements HandlerInterceptor {
+
+	private static final String HANDLER_EVENT = FlightRecorderInterceptor.class.getName() + ".handler";
+
+	private static final String RENDER_EVENT = FlightRecorderInterceptor.class.getName() + ".render";
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		HandlerEvent event = new HandlerEvent();
+		if (event.isEnabled()) {
+			event.begin();
+			request.setAttribute(HANDLER_EVENT, event);
+		}
+		return true;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+			ModelAndView modelAndView) {
+		RenderEvent event = new RenderEvent();
+		if (modelAndView != null && event.isEnabled()) {
+			event.view = modelAndView.getViewName();
+			event.begin();
+			request.setAttribute(RENDER_EVENT, event);
+		}
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		if (request.getAttribute(RENDER_EVENT) instanceof RenderEvent event) {
+			event.commit();
+		}
+		if (request.getAttribute(HANDLER_EVENT) instanceof HandlerEvent event && event.shouldCommit()) {
+			event.method = request.getMethod();
+			event.route = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			event.ownerId = ownerId(request);
+			event.status = response.getStatus();
+			event.commit();
+		}
+	}
+
+	private static int ownerId(HttpServletRequest request) {
+		@SuppressWarnings("unchecked")
+		Map<String, String> variables = (Map<String, String>) request
+			.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+		String ownerId = (variables != null) ? variables.get("ownerId") : null;
+		try {
+			return (ownerId != null) ? Integer.parseInt(ownerId) : 0;
+		}
+		catch (NumberFormatException ex) {
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Records the flushes of a Hibernate session as {@link FlushEvent Flight Recorder
+ * events}, both the flushes on commit and the automatic ones done before a query. One
+ * instance per session is created by the {@link CompositeSessionEventListener}.
+ */
+class FlightRecorderSessionEventListener implements SessionEventListener {
+
+	private FlushEvent flushEvent;
+
+	@Override
+	public void flushStart() {
+		begin();
+	}
+
+	@Override
+	public void flushEnd(int numberOfEntities, int numberOfCollections) {
+		commit(false, numberOfEntities, numberOfCollections);
+	}
+
+	@Override
+	public void partialFlushStart() {
+		begin();
+	}
+
+	@Override
+	public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+		commit(true, numberOfEntities, numberOfCollections);
+	}
+
+	private void begin() {
+		FlushEvent event = new FlushEvent();
+		if (event.isEnabled()) {
+			event.begin();
+			this.flushEvent = event;
+		}
+	}
+
+	private void commit(boolean automatic, int entities, int collections) {
+		FlushEvent event = this.flushEvent;
+		if (event != null) {
+			this.flushEvent = null;
+			if (event.shouldCommit()) {
+				event.automatic = automatic;
+				event.entities = entities;
+				event.collections = collections;
+				event.commit();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning a flush of a Hibernate session, including the dirty
+ * checking of its entities and the statements the flush executes.
+ */
+@Name("org.springframework.samples.petclinic.Flush")
+@Label("Hibernate Flush")
+@Category({ "Petclinic", "Data" })
+@Description("Flush of a Hibernate session")
+@Enabled(false)
+@StackTrace(false)
+class FlushEvent extends jdk.jfr.Event {
+
+	@Label("Automatic")
+	@Description("Whether the flush was triggered by a query rather than by a commit")
+	boolean automatic;
+
+	@Label("Entities")
+	@Description("Number of entities dirty-checked")
+	int entities;
+
+	@Label("Collections")
+	@Description("Number of collections dirty-checked")
+	int collections;
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Store for rendered template fragments, filled by the {@code pc:cache} attribute of the
+ * {@link FragmentCacheDialect}. Keys are the values of the attribute expressions, by
+ * convention {@code <type>:<id>:<fragment>}, e.g. {@code owner:1:pets}, so that all
+ * fragments of an entity can be evicted with {@link #evict(String) evict("owner:1:")}
+ * when it is saved. Keys of fragments that list child rows also carry their ids, e.g.
+ * {@code owner:1:pets:[1]:[[]]} for the pets of owner 1 and their visits, so that rows
+ * added without an eviction, by another instance for example, are rendered anyway. Other
+ * changes made without an eviction, such as a pet renamed by another instance, are
+ * rendered once the fragment expires, {@code petclinic.fragment-cache.expire-after-write}
+ * after it was stored.
+ * <p>
+ * Memory is bounded by the total number of characters held, least recently used fragments
+ * are dropped first. Hits and misses are published as the {@code thymeleaf.fragments}
+ * cache metrics.
+ */
+@Component
+public class FragmentCache {
+
+	private final Cache<String, String> fragments;
+
+	public FragmentCache(@Value("${petclinic.fragment-cache.max-chars:4000000}") long maxChars,
+			@Value("${petclinic.fragment-cache.expire-after-write:5m}") Duration expireAfterWrite,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		this.fragments = Caffeine.newBuilder()
+			.maximumWeight(maxChars)
+			.expireAfterWrite(expireAfterWrite)
+			.weigher((String key, String html) -> key.length() + html.length())
+			.recordStats()
+			.build();
+		meterRegistry
+			.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, this.fragments, "thymeleaf.fragments"));
+	}
+
+	/**
+	 * Return the rendered fragment stored under the given key.
+	 * @param key the fragment key
+	 * @return the rendered HTML, or {@code null} if not cached
+	 */
+	public String get(String key) {
+		return this.fragments.getIfPresent(key);
+	}
+
+	public void put(String key, String html) {
+		this.fragments.put(key, html);
+	}
+
+	/**
+	 * Evict all fragments whose key starts with the given prefix.
+	 * @param keyPrefix the key prefix, e.g. {@code owner:1:}
+	 */
+	public void evict(String keyPrefix) {
+		this.fragments.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+	}
+
+	public void evictAll() {
+		this.fragments.invalidateAll();
+	}
+
+}
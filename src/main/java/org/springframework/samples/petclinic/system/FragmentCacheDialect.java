@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Set;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.dialect.AbstractProcessorDialect;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.inline.NoOpInliner;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.processor.element.AbstractAttributeModelProcessor;
+import org.thymeleaf.processor.element.IElementModelStructureHandler;
+import org.thymeleaf.standard.expression.StandardExpressions;
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * Thymeleaf dialect adding the {@code pc:cache} attribute. The attribute value is an
+ * expression evaluated to the cache key, the element is rendered once per key and later
+ * served from the {@link FragmentCache}:
+ *
+ * <pre class="code">
+ * &lt;table pc:cache="|owner:${owner.id}:pets|"&gt;...&lt;/table&gt;
+ * </pre>
+ *
+ * A {@code null} key, or the absence of a {@link FragmentCache} bean, disables caching
+ * for that rendering. The dialect runs before the standard dialect, so the cached element
+ * is not evaluated at all on a hit.
+ */
+@Component
+class FragmentCacheDialect extends AbstractProcessorDialect {
+
+	private final ObjectProvider<FragmentCache> fragmentCache;
+
+	FragmentCacheDialect(ObjectProvider<FragmentCache> fragmentCache) {
+		super("Petclinic", "pc", 100);
+		this.fragmentCache = fragmentCache;
+	}
+
+	@Override
+	public Set<IProcessor> getProcessors(String dialectPrefix) {
+		return Set.of(new CacheAttributeProcessor(dialectPrefix, this.fragmentCache));
+	}
+
+	private static class CacheAttributeProcessor extends AbstractAttributeModelProcessor {
+
+		private final ObjectProvider<FragmentCache> fragmentCache;
+
+		CacheAttributeProcessor(String dialectPrefix, ObjectProvider<FragmentCache> fragmentCache) {
+			super(TemplateMode.HTML, dialectPrefix, null, false, "cache", true, 0, true);
+			this.fragmentCache = fragmentCache;
+		}
+
+		@Override
+		protected void doProcess(ITemplateContext context, IModel model, AttributeName attributeName,
+				String attributeValue, IElementModelStructureHandler structureHandler) {
+			FragmentCache fragments = this.fragmentCache.getIfAvailable();
+			if (fragments == null) {
+				return;
+			}
+			Object key = StandardExpressions.getExpressionParser(context.getConfiguration())
+				.parseExpression(context, attributeValue)
+				.execute(context);
+			if (key == null) {
+				return;
+			}
+			String html = fragments.get(key.toString());
+			if (html == null) {
+				html = render(context, model, attributeName);
+				fragments.put(key.toString(), html);
+			}
+			model.reset();
+			model.add(context.getModelFactory().createText(html));
+			// the fragment is final markup, it must not be processed again
+			structureHandler.setInliner(NoOpInliner.INSTANCE);
+		}
+
+		private String render(ITemplateContext context, IModel model, AttributeName attributeName) {
+			IProcessableElementTag tag = (IProcessableElementTag) model.get(0);
+			IModel element = model.cloneModel();
+			element.replace(0, context.getModelFactory().removeAttribute(tag, attributeName));
+			try {
+				StringWriter markup = new StringWriter();
+				element.write(markup);
+				TemplateManager templateManager = context.getConfiguration().getTemplateManager();
+				TemplateModel template = templateManager.parseString(context.getTemplateData(), markup.toString(),
+						tag.getLine(), tag.getCol(), context.getTemplateMode(), false);
+				StringWriter html = new StringWriter();
+				templateManager.process(template, context, html);
+				return html.toString();
+			}
+			catch (IOException ex) {
+				throw new TemplateProcessingException("Could not render cached fragment", ex);
+			}
+		}
+
+	}
+
+}
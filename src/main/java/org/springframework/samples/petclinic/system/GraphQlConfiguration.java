@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+
+/**
+ * Limits for the GraphQL endpoint. Queries whose complexity (one point per selected
+ * field) or nesting depth exceed the configured values are rejected before any data is
+ * fetched, so a single request cannot walk the whole clinic graph.
+ */
+@Configuration(proxyBeanMethods = false)
+class GraphQlConfiguration {
+
+	@Bean
+	public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+			@Value("${petclinic.graphql.max-complexity:200}") int maxComplexity) {
+		return new MaxQueryComplexityInstrumentation(maxComplexity);
+	}
+
+	@Bean
+	public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+			@Value("${petclinic.graphql.max-depth:6}") int maxDepth) {
+		return new MaxQueryDepthInstrumentation(maxDepth);
+	}
+
+}
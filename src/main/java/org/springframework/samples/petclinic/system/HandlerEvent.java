@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning the handling of a request by a controller, including the
+ * rendering of its view. Disabled unless enabled by a recording, for example with the
+ * {@code jfr/petclinic.jfc} settings.
+ */
+@Name("org.springframework.samples.petclinic.Handler")
+@Label("Request Handling")
+@Category({ "Petclinic", "Web" })
+@Description("Handling of a request by a controller, including the rendering of its view")
+@Enabled(false)
+@StackTrace(false)
+class HandlerEvent extends jdk.jfr.Event {
+
+	@Label("Method")
+	String method;
+
+	@Label("Route")
+	@Description("URI pattern of the handler, such as /owners/{ownerId}")
+	String route;
+
+	@Label("Owner Id")
+	@Description("Owner the request is about, 0 for requests that are not about an owner")
+	int ownerId;
+
+	@Label("Status")
+	int status;
+
+}
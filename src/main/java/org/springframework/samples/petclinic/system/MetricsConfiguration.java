@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.List;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Database metrics on top of the ones Spring Boot provides. Repository invocations are
+ * timed by Spring Boot as {@code spring.data.repository.invocations}, one timer per
+ * repository, method and outcome. This configuration adds the statements, entity loads
+ * and collection fetches of each request, see {@link RequestStatisticsFilter}, counted by
+ * the {@link RequestCountingIntegrator} and the {@link CompositeSessionEventListener}
+ * rather than by the Hibernate statistics, which are disabled and not published as
+ * meters.
+ */
+@Configuration(proxyBeanMethods = false)
+class MetricsConfiguration {
+
+	@Bean
+	HibernatePropertiesCustomizer requestCountingIntegrator() {
+		IntegratorProvider integrators = () -> List.of(new RequestCountingIntegrator());
+		return (properties) -> properties.put(JpaSettings.INTEGRATOR_PROVIDER, integrators);
+	}
+
+	@Bean
+	RequestStatisticsFilter requestStatisticsFilter(MeterRegistry registry) {
+		return new RequestStatisticsFilter(registry);
+	}
+
+}
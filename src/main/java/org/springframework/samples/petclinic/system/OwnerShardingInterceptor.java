@@ -0,0 +1,241 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Routes the methods of the {@link OwnerRepository} to the shards of a
+ * {@link ShardRoutingDataSource}. Runs ahead of the transaction interceptor, so that the
+ * transaction takes its connection from the selected shard:
+ * <ul>
+ * <li>an owner is read from, and saved to, the shard of its id, a new owner is saved to
+ * the shards in turn</li>
+ * <li>searches run on every shard in parallel, each shard returning the first
+ * {@code offset + size} owners of the requested order, which are merged and cut to the
+ * requested page</li>
+ * <li>the export reads every shard in its own transaction and keeps the rows in memory, a
+ * cursor cannot outlive the transaction of its shard</li>
+ * <li>pets and their visits are read from every shard, their ids are unique across
+ * shards</li>
+ * <li>pet types are read from the first shard</li>
+ * </ul>
+ * Apart from the export, which the streaming views call inside their own transaction, a
+ * method invoked inside a transaction, such as the {@code findById} of
+ * {@link OwnerRepository#findWithVisitsById}, stays on the shard of the transaction.
+ */
+final class OwnerShardingInterceptor implements MethodInterceptor {
+
+	// the calling thread runs a shard query itself when every worker is busy
+	private static final int WORKERS_PER_SHARD = 8;
+
+	private final int shards;
+
+	private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+	private final ThreadPoolExecutor executor;
+
+	private final AtomicInteger nextShard = new AtomicInteger();
+
+	OwnerShardingInterceptor(int shards, ObjectProvider<PlatformTransactionManager> transactionManager) {
+		this.shards = shards;
+		this.transactionManager = transactionManager;
+		CustomizableThreadFactory threads = new CustomizableThreadFactory("owner-shard-");
+		threads.setDaemon(true);
+		this.executor = new ThreadPoolExecutor(0, shards * WORKERS_PER_SHARD, 60, TimeUnit.SECONDS,
+				new SynchronousQueue<>(), threads, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		if (invocation.getMethod().getName().equals("streamByLastName")) {
+			// the rows are no entities, the transaction of the caller does not need them
+			return findStream(invocation);
+		}
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return invocation.proceed();
+		}
+		Object[] args = invocation.getArguments();
+		return switch (invocation.getMethod().getName()) {
+			case "findById", "findWithVisitsById" ->
+				(args[0] != null) ? ShardRoutingDataSource.call(shardOf((Integer) args[0]), () -> proceed(invocation))
+						: invocation.proceed();
+			case "save" -> ShardRoutingDataSource.call(shardToSave((Owner) args[0]), () -> proceed(invocation));
+			case "findByLastName", "findAll" -> findPage(invocation);
+			case "findPetsWithVisits" -> findList(invocation);
+			default -> invocation.proceed();
+		};
+	}
+
+	private int shardOf(int ownerId) {
+		return ShardRoutingDataSource.shardOf(ownerId, this.shards);
+	}
+
+	private int shardToSave(Owner owner) {
+		return (owner.getId() != null) ? shardOf(owner.getId())
+				: Math.floorMod(this.nextShard.getAndIncrement(), this.shards);
+	}
+
+	private Page<Owner> findPage(MethodInvocation invocation) throws Exception {
+		Object[] args = invocation.getArguments().clone();
+		Pageable pageable = (Pageable) args[args.length - 1];
+		// every shard sorts like the merge below, id last, or its first rows are not the
+		// ones the merged page needs
+		Sort sort = (pageable.getSort().getOrderFor("id") != null) ? pageable.getSort()
+				: pageable.getSort().and(Sort.by("id"));
+		args[args.length - 1] = pageable.isPaged()
+				? PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), sort) : Pageable.unpaged(sort);
+		List<Owner> owners = new ArrayList<>();
+		long total = 0;
+		for (Object result : scatter((shard) -> () -> proceed(clone(invocation, args)))) {
+			Page<?> page = (Page<?>) result;
+			for (Object owner : page.getContent()) {
+				owners.add((Owner) owner);
+			}
+			total += page.getTotalElements();
+		}
+		owners.sort(ordering(pageable.getSort()));
+		if (pageable.isPaged()) {
+			int from = (int) Math.min(pageable.getOffset(), owners.size());
+			owners = owners.subList(from, Math.min(from + pageable.getPageSize(), owners.size()));
+		}
+		return new PageImpl<>(owners, pageable, total);
+	}
+
+	private List<Object> findList(MethodInvocation invocation) throws Exception {
+		List<Object> rows = new ArrayList<>();
+		for (Object result : scatter((shard) -> () -> proceed(clone(invocation, invocation.getArguments())))) {
+			rows.addAll((List<?>) result);
+		}
+		return rows;
+	}
+
+	private Stream<OwnerSummary> findStream(MethodInvocation invocation) throws Exception {
+		TransactionTemplate transaction = new TransactionTemplate(this.transactionManager.getObject());
+		transaction.setReadOnly(true);
+		// a shard read by the calling thread must not join the transaction of the caller
+		transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		List<OwnerSummary> rows = new ArrayList<>();
+		for (Object result : scatter((shard) -> () -> transaction.execute((status) -> {
+			try (Stream<?> stream = (Stream<?>) proceed(clone(invocation, invocation.getArguments()))) {
+				return stream.toList();
+			}
+		}))) {
+			for (Object row : (List<?>) result) {
+				rows.add((OwnerSummary) row);
+			}
+		}
+		rows.sort(Comparator.comparing(OwnerSummary::getId));
+		return rows.stream();
+	}
+
+	/**
+	 * Call the given action on every shard in parallel.
+	 * @param action the action for a shard, called with the shard selected
+	 * @return the result of each shard
+	 */
+	private List<Object> scatter(IntFunction<Callable<Object>> action) throws Exception {
+		List<Future<Object>> futures = new ArrayList<>(this.shards);
+		try {
+			for (int shard = 0; shard < this.shards; shard++) {
+				Callable<Object> call = action.apply(shard);
+				int selected = shard;
+				futures.add(this.executor.submit(() -> ShardRoutingDataSource.call(selected, call)));
+			}
+			List<Object> results = new ArrayList<>(this.shards);
+			for (Future<Object> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof Exception cause) {
+				throw cause;
+			}
+			throw new UndeclaredThrowableException(ex.getCause());
+		}
+		finally {
+			futures.forEach((future) -> future.cancel(true));
+		}
+	}
+
+	private static MethodInvocation clone(MethodInvocation invocation, Object[] args) {
+		return ((ProxyMethodInvocation) invocation).invocableClone(args.clone());
+	}
+
+	private static Object proceed(MethodInvocation invocation) {
+		try {
+			return invocation.proceed();
+		}
+		catch (RuntimeException | Error ex) {
+			throw ex;
+		}
+		catch (Throwable ex) {
+			throw new UndeclaredThrowableException(ex);
+		}
+	}
+
+	/**
+	 * Order of the owners of a page, breaking ties by id like a single database scanning
+	 * its primary key would.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Comparator<Owner> ordering(Sort sort) {
+		Comparator<Owner> ordering = (left, right) -> 0;
+		for (Sort.Order order : sort) {
+			Comparator<Object> values = Comparator
+				.nullsFirst(order.isIgnoreCase() ? Comparator.comparing((value) -> value.toString().toLowerCase())
+						: (left, right) -> ((Comparable<Object>) left).compareTo(right));
+			Comparator<Owner> property = Comparator
+				.comparing((owner) -> new BeanWrapperImpl(owner).getPropertyValue(order.getProperty()), values);
+			ordering = ordering.thenComparing(order.isAscending() ? property : property.reversed());
+		}
+		return ordering.thenComparing(Owner::getId);
+	}
+
+}
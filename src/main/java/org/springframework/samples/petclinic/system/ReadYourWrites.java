@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Pins the reads of a client to the primary database for {@code window} after it wrote,
+ * so that it does not see replicas lagging behind its own changes, e.g. the owner page it
+ * is redirected to after saving an owner. A committed read-write transaction pins the
+ * rest of the current request and sets a cookie with the end of the window, which pins
+ * the next requests of the client until then. The cookie is set before the view is
+ * rendered, so handlers committing the response themselves only pin the current request.
+ */
+class ReadYourWrites implements HandlerInterceptor, TransactionExecutionListener {
+
+	static final String COOKIE = "PRIMARY_UNTIL";
+
+	private static final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+
+	private static final ThreadLocal<Boolean> wrote = new ThreadLocal<>();
+
+	private final Duration window;
+
+	ReadYourWrites(Duration window) {
+		this.window = window;
+	}
+
+	/**
+	 * Return whether the reads of the current thread must go to the primary database.
+	 * @return {@code true} if the client wrote within the window
+	 */
+	static boolean isPinned() {
+		return pinned.get() != null;
+	}
+
+	@Override
+	public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+		// outside of requests, nothing would clear the flags of the thread
+		if (commitFailure == null && !transaction.isReadOnly() && RequestContextHolder.getRequestAttributes() != null) {
+			pinned.set(Boolean.TRUE);
+			wrote.set(Boolean.TRUE);
+		}
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		Cookie[] cookies = request.getCookies();
+		if (cookies != null) {
+			for (Cookie cookie : cookies) {
+				if (COOKIE.equals(cookie.getName()) && until(cookie.getValue()) > System.currentTimeMillis()) {
+					pinned.set(Boolean.TRUE);
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+			ModelAndView modelAndView) {
+		if (wrote.get() != null && !response.isCommitted()) {
+			Cookie cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + this.window.toMillis()));
+			cookie.setPath("/");
+			cookie.setMaxAge((int) Math.max(this.window.toSeconds(), 1));
+			cookie.setHttpOnly(true);
+			response.addCookie(cookie);
+		}
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		pinned.remove();
+		wrote.remove();
+	}
+
+	private static long until(String value) {
+		try {
+			return Long.parseLong(value);
+		}
+		catch (NumberFormatException ex) {
+			return 0;
+		}
+	}
+
+}
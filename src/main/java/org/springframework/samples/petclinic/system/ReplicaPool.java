@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Read-only data source balancing connections over replica pools in turn. A replica
+ * failing to hand out a connection is ejected for {@code ejection} and the next one is
+ * tried, down to the primary when none is left. Every {@code healthCheckInterval}, each
+ * replica is checked with {@link Connection#isValid(int)}, ejecting the failing ones and
+ * bringing back those that recovered. Connections are taken from the primary as well,
+ * marked read-only, while the current thread {@link ReadYourWrites#isPinned() is pinned}
+ * to it.
+ */
+class ReplicaPool extends AbstractDataSource implements Closeable {
+
+	private static final Log logger = LogFactory.getLog(ReplicaPool.class);
+
+	private final DataSource primary;
+
+	private final List<Replica> replicas;
+
+	private final long ejectionNanos;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private final ScheduledExecutorService healthCheck;
+
+	ReplicaPool(DataSource primary, List<HikariDataSource> replicas, Duration ejection, Duration healthCheckInterval) {
+		this.primary = primary;
+		this.replicas = replicas.stream().map(Replica::new).toList();
+		this.ejectionNanos = ejection.toNanos();
+		this.healthCheck = Executors.newSingleThreadScheduledExecutor((task) -> {
+			Thread thread = new Thread(task, "replica-health-check");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.healthCheck.scheduleWithFixedDelay(this::checkHealth, healthCheckInterval.toMillis(),
+				healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (!ReadYourWrites.isPinned()) {
+			int start = Math.floorMod(this.next.getAndIncrement(), Math.max(this.replicas.size(), 1));
+			for (int i = 0; i < this.replicas.size(); i++) {
+				Replica replica = this.replicas.get((start + i) % this.replicas.size());
+				if (replica.isHealthy()) {
+					try {
+						return replica.dataSource.getConnection();
+					}
+					catch (SQLException ex) {
+						replica.eject(ex);
+					}
+				}
+			}
+		}
+		Connection connection = this.primary.getConnection();
+		connection.setReadOnly(true);
+		return connection;
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Replica connections use the credentials of their pool");
+	}
+
+	/**
+	 * Return the state of each replica, by pool name.
+	 * @return {@code UP}, or {@code EJECTED} while a replica is ejected
+	 */
+	Map<String, String> getStates() {
+		Map<String, String> states = new LinkedHashMap<>();
+		for (Replica replica : this.replicas) {
+			states.put(replica.dataSource.getPoolName(), replica.isHealthy() ? "UP" : "EJECTED");
+		}
+		return states;
+	}
+
+	void checkHealth() {
+		for (Replica replica : this.replicas) {
+			try (Connection connection = replica.dataSource.getConnection()) {
+				if (!connection.isValid(1)) {
+					throw new SQLException("Connection is not valid");
+				}
+				replica.readmit();
+			}
+			catch (SQLException ex) {
+				replica.eject(ex);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		this.healthCheck.shutdownNow();
+		this.replicas.forEach((replica) -> replica.dataSource.close());
+	}
+
+	private final class Replica {
+
+		private final HikariDataSource dataSource;
+
+		private volatile long ejectedUntil;
+
+		private volatile boolean ejected;
+
+		Replica(HikariDataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		boolean isHealthy() {
+			return !this.ejected || System.nanoTime() - this.ejectedUntil >= 0;
+		}
+
+		void eject(SQLException ex) {
+			if (isHealthy()) {
+				logger.warn("Ejecting replica " + this.dataSource.getPoolName() + ": " + ex.getMessage());
+			}
+			this.ejectedUntil = System.nanoTime() + ReplicaPool.this.ejectionNanos;
+			this.ejected = true;
+		}
+
+		void readmit() {
+			if (this.ejected) {
+				logger.info("Replica " + this.dataSource.getPoolName() + " is healthy again");
+				this.ejected = false;
+			}
+		}
+
+	}
+
+}
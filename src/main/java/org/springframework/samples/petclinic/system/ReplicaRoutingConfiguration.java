@@ -0,0 +1,170 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sends read-only transactions to the replicas listed by
+ * {@code petclinic.datasource.replica-urls} and everything else to the primary configured
+ * by {@code spring.datasource.*}. The data source is a
+ * {@link LazyConnectionDataSourceProxy}, which only takes a connection when the first
+ * statement is run, from the {@link ReplicaPool} if the transaction marked it read-only
+ * and from the primary otherwise. Replicas use the credentials and the
+ * {@code spring.datasource.hikari.*} settings of the primary.
+ * <p>
+ * Embedded replicas, such as {@code jdbc:h2:mem:replica1}, are initialized with the
+ * scripts of the primary, which makes routing testable locally. Nothing replicates the
+ * writes to them: a client sees its own changes for {@link ReadYourWrites
+ * petclinic.datasource.read-your-writes} and then reads the replicas again.
+ * <p>
+ * Replicas cannot be combined with {@link ShardingConfiguration sharding}, which refuses
+ * to start when both are configured.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.datasource.replica-urls")
+@Conditional(ReplicaRoutingConfiguration.NotSharded.class)
+class ReplicaRoutingConfiguration implements WebMvcConfigurer {
+
+	// a replica that cannot hand out a connection in time is ejected rather than holding
+	// the request for the default 30 seconds
+	private static final long REPLICA_CONNECTION_TIMEOUT = 1000;
+
+	private final ReadYourWrites readYourWrites;
+
+	ReplicaRoutingConfiguration(@Value("${petclinic.datasource.read-your-writes:5s}") Duration window) {
+		this.readYourWrites = new ReadYourWrites(window);
+	}
+
+	@Bean
+	Replicas replicas(DataSourceProperties properties, Environment environment,
+			@Value("${petclinic.datasource.replica-urls}") List<String> replicaUrls,
+			@Value("${petclinic.datasource.replica-ejection:30s}") Duration ejection,
+			@Value("${petclinic.datasource.replica-health-check-interval:5s}") Duration healthCheckInterval,
+			ObjectProvider<SqlInitializationProperties> sqlInitialization) {
+		Binder binder = Binder.get(environment);
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+		List<HikariDataSource> replicas = new ArrayList<>();
+		for (String url : replicaUrls) {
+			SqlInitializationProperties settings = sqlInitialization.getIfAvailable();
+			DataSource unpooled = DataSourceBuilder.create()
+				.type(SimpleDriverDataSource.class)
+				.url(url)
+				.username(properties.determineUsername())
+				.password(properties.determinePassword())
+				.build();
+			if (settings != null && EmbeddedDatabaseConnection.isEmbedded(unpooled)) {
+				new SqlDataSourceScriptDatabaseInitializer(unpooled, settings).initializeDatabase();
+			}
+			HikariDataSource replica = new HikariDataSource();
+			binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+			replica.setJdbcUrl(url);
+			replica.setUsername(properties.determineUsername());
+			replica.setPassword(properties.determinePassword());
+			replica.setPoolName("replica-" + (replicas.size() + 1));
+			replica.setReadOnly(true);
+			replica.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT);
+			// a replica that is down when the application starts is ejected, not fatal
+			replica.setInitializationFailTimeout(-1);
+			replicas.add(replica);
+		}
+		return new Replicas(primary, new ReplicaPool(primary, replicas, ejection, healthCheckInterval));
+	}
+
+	@Bean
+	DataSource dataSource(Replicas replicas) {
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicas.primary());
+		dataSource.setReadOnlyDataSource(replicas.pool());
+		return dataSource;
+	}
+
+	@Bean
+	HealthIndicator replicasHealthIndicator(Replicas replicas) {
+		return () -> Health.up().withDetails(replicas.pool().getStates()).build();
+	}
+
+	@Bean
+	ReadYourWrites readYourWrites() {
+		return this.readYourWrites;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(this.readYourWrites);
+	}
+
+	/**
+	 * The pools of the primary and of the replicas, closed with the application context.
+	 * Kept apart from the data source, which other post-processors may wrap.
+	 */
+	record Replicas(HikariDataSource primary, ReplicaPool pool) implements Closeable {
+
+		@Override
+		public void close() {
+			this.pool.close();
+			this.primary.close();
+		}
+
+	}
+
+	/**
+	 * Matches unless sharding is configured too, which then reports the conflict.
+	 */
+	static class NotSharded extends NoneNestedConditions {
+
+		NotSharded() {
+			super(ConfigurationPhase.PARSE_CONFIGURATION);
+		}
+
+		@ConditionalOnProperty(name = "petclinic.sharding.shard-urls")
+		static class Sharded {
+
+		}
+
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Repository method invoked by the current thread, such as
+ * {@code OwnerRepository.findByLastName}, tracked by an interceptor added to the
+ * repository proxies.
+ */
+final class RepositoryCaller {
+
+	private static final ThreadLocal<String> current = new ThreadLocal<>();
+
+	private RepositoryCaller() {
+	}
+
+	/**
+	 * Return the innermost repository method invoked by the current thread.
+	 * @return the repository and method name, or {@code null} outside of a repository
+	 */
+	static String current() {
+		return current.get();
+	}
+
+	/**
+	 * Interceptor tracking the invocations of a repository.
+	 */
+	static final class Interceptor implements MethodInterceptor {
+
+		private final String repository;
+
+		Interceptor(Class<?> repositoryInterface) {
+			this.repository = repositoryInterface.getSimpleName();
+		}
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			String previous = current.get();
+			current.set(this.repository + "." + invocation.getMethod().getName());
+			try {
+				return invocation.proceed();
+			}
+			finally {
+				if (previous != null) {
+					current.set(previous);
+				}
+				else {
+					current.remove();
+				}
+			}
+		}
+
+	}
+
+}
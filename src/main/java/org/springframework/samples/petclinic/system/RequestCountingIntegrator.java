@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.hibernate.HibernateException;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Counts the entities a Hibernate session loads and the collections it initializes into
+ * the {@link RequestStatistics} of the current request, with listeners appended after the
+ * ones of Hibernate. The statements are counted by the
+ * {@link RequestCountingSessionEventListener}.
+ */
+class RequestCountingIntegrator implements Integrator {
+
+	@Override
+	public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+			SessionFactoryImplementor sessionFactory) {
+		EventListenerRegistry listeners = sessionFactory.getServiceRegistry()
+			.requireService(EventListenerRegistry.class);
+		listeners.appendListeners(EventType.POST_LOAD, new EntityLoadCounter());
+		listeners.appendListeners(EventType.INIT_COLLECTION, new CollectionFetchCounter());
+	}
+
+	@Override
+	public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+	}
+
+	private static final class EntityLoadCounter implements PostLoadEventListener {
+
+		@Override
+		public void onPostLoad(PostLoadEvent event) {
+			RequestStatistics statistics = RequestStatistics.current();
+			if (statistics != null) {
+				statistics.entityLoaded();
+			}
+		}
+
+	}
+
+	private static final class CollectionFetchCounter implements InitializeCollectionEventListener {
+
+		@Override
+		public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+			RequestStatistics statistics = RequestStatistics.current();
+			if (statistics != null) {
+				statistics.collectionFetched();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Counts the JDBC statements a Hibernate session prepares into the
+ * {@link RequestStatistics} of the current request. One instance per session is created
+ * by the {@link CompositeSessionEventListener}.
+ */
+class RequestCountingSessionEventListener implements SessionEventListener {
+
+	@Override
+	public void jdbcPrepareStatementStart() {
+		RequestStatistics statistics = RequestStatistics.current();
+		if (statistics != null) {
+			statistics.statementPrepared();
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+/**
+ * Database work done while handling the current request, counted by the Hibernate
+ * listeners of the {@link RequestCountingIntegrator} and the
+ * {@link RequestCountingSessionEventListener}. Bound to the request thread by the
+ * {@link RequestStatisticsFilter}, work done on other threads is not counted.
+ * <p>
+ * The durations are only measured when the {@link ServerTimingFilter} is enabled and are
+ * zero otherwise.
+ */
+public final class RequestStatistics {
+
+	private static final ThreadLocal<RequestStatistics> current = new ThreadLocal<>();
+
+	private int statements;
+
+	private int entitiesLoaded;
+
+	private int collectionsFetched;
+
+	private long statementNanos;
+
+	private long flushNanos;
+
+	private long renderStart;
+
+	private long renderNanos;
+
+	private RequestStatistics() {
+	}
+
+	/**
+	 * Return the statistics of the request handled by the current thread.
+	 * @return the statistics, or {@code null} outside of a request
+	 */
+	public static RequestStatistics current() {
+		return current.get();
+	}
+
+	static RequestStatistics start() {
+		RequestStatistics statistics = new RequestStatistics();
+		current.set(statistics);
+		return statistics;
+	}
+
+	static void end() {
+		current.remove();
+	}
+
+	/**
+	 * Return the number of JDBC statements prepared.
+	 * @return the number of statements
+	 */
+	public int getStatements() {
+		return this.statements;
+	}
+
+	/**
+	 * Return the number of entities read from the database.
+	 * @return the number of entities
+	 */
+	public int getEntitiesLoaded() {
+		return this.entitiesLoaded;
+	}
+
+	/**
+	 * Return the number of collections initialized with a separate query.
+	 * @return the number of collections
+	 */
+	public int getCollectionsFetched() {
+		return this.collectionsFetched;
+	}
+
+	/**
+	 * Return the time spent executing JDBC statements.
+	 * @return the time in nanoseconds
+	 */
+	public long getStatementNanos() {
+		return this.statementNanos;
+	}
+
+	/**
+	 * Return the time spent flushing the persistence context, including dirty checking
+	 * and the statements executed by the flush.
+	 * @return the time in nanoseconds
+	 */
+	public long getFlushNanos() {
+		return this.flushNanos;
+	}
+
+	/**
+	 * Return the time spent rendering the view.
+	 * @return the time in nanoseconds
+	 */
+	public long getRenderNanos() {
+		return this.renderNanos;
+	}
+
+	void statementPrepared() {
+		this.statements++;
+	}
+
+	void entityLoaded() {
+		this.entitiesLoaded++;
+	}
+
+	void collectionFetched() {
+		this.collectionsFetched++;
+	}
+
+	void statementExecuted(long nanos) {
+		this.statementNanos += nanos;
+	}
+
+	void flushed(long nanos) {
+		this.flushNanos += nanos;
+	}
+
+	void renderStarted() {
+		this.renderStart = System.nanoTime();
+	}
+
+	void renderEnded() {
+		if (this.renderStart != 0) {
+			this.renderNanos += System.nanoTime() - this.renderStart;
+			this.renderStart = 0;
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Binds {@link RequestStatistics} to each request and records them, once the request has
+ * been handled, as the {@code hibernate.request.statements},
+ * {@code hibernate.request.entities.loaded} and
+ * {@code hibernate.request.collections.fetched} distribution summaries, tagged with the
+ * URI pattern of the handler like {@code http.server.requests}.
+ */
+class RequestStatisticsFilter extends OncePerRequestFilter implements Ordered {
+
+	/**
+	 * Order of the filter, right after the observation of the request.
+	 */
+	static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 2;
+
+	private final MeterRegistry registry;
+
+	RequestStatisticsFilter(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		RequestStatistics statistics = RequestStatistics.start();
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			RequestStatistics.end();
+			Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			if (uri != null) {
+				record("hibernate.request.statements", "statements", uri, statistics.getStatements());
+				record("hibernate.request.entities.loaded", "entities", uri, statistics.getEntitiesLoaded());
+				record("hibernate.request.collections.fetched", "collections", uri, statistics.getCollectionsFetched());
+			}
+		}
+	}
+
+	private void record(String name, String unit, Object uri, int value) {
+		DistributionSummary.builder(name)
+			.baseUnit(unit)
+			.tag("uri", uri.toString())
+			.register(this.registry)
+			.record(value);
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.lang.management.ManagementFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.sun.management.ThreadMXBean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-request allocation and CPU accounting, see {@link ResourceAccountingInterceptor},
+ * with the {@link AllocationEndpoint}. Requires a JVM measuring the allocations and the
+ * CPU time of threads, which HotSpot does by default; otherwise nothing is recorded.
+ * Disabled with {@code petclinic.resource-accounting.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.resource-accounting.enabled", havingValue = "true", matchIfMissing = true)
+class ResourceAccountingConfiguration implements WebMvcConfigurer {
+
+	private final ObjectProvider<MeterRegistry> registry;
+
+	ResourceAccountingConfiguration(ObjectProvider<MeterRegistry> registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		MeterRegistry meterRegistry = this.registry.getIfAvailable();
+		if (meterRegistry != null && ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threads
+				&& threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()
+				&& threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled()) {
+			registry.addInterceptor(new ResourceAccountingInterceptor(threads, meterRegistry));
+		}
+	}
+
+	@Bean
+	AllocationEndpoint allocationEndpoint() {
+		return new AllocationEndpoint(this.registry);
+	}
+
+}
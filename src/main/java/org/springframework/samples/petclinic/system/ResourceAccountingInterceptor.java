@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.sun.management.ThreadMXBean;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records the bytes allocated and the CPU time used by the request thread while a
+ * controller handles a request and renders its view, as the
+ * {@code http.server.requests.allocated} and {@code http.server.requests.cpu}
+ * distribution summaries tagged with the URI pattern of the handler. Work done on other
+ * threads, such as the writing of streamed responses, is not accounted for.
+ */
+class ResourceAccountingInterceptor implements HandlerInterceptor {
+
+	static final String ALLOCATED = "http.server.requests.allocated";
+
+	static final String CPU = "http.server.requests.cpu";
+
+	private static final String START = ResourceAccountingInterceptor.class.getName() + ".start";
+
+	private final ThreadMXBean threads;
+
+	private final MeterRegistry registry;
+
+	ResourceAccountingInterceptor(ThreadMXBean threads, MeterRegistry registry) {
+		this.threads = threads;
+		this.registry = registry;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod) {
+			request.setAttribute(START, new long[] { this.threads.getCurrentThreadAllocatedBytes(),
+					this.threads.getCurrentThreadCpuTime() });
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		if (request.getAttribute(START) instanceof long[] start) {
+			long allocated = this.threads.getCurrentThreadAllocatedBytes() - start[0];
+			long cpu = this.threads.getCurrentThreadCpuTime() - start[1];
+			Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			String tag = (uri != null) ? uri.toString() : "UNKNOWN";
+			DistributionSummary.builder(ALLOCATED)
+				.baseUnit("bytes")
+				.tag("uri", tag)
+				.register(this.registry)
+				.record(allocated);
+			DistributionSummary.builder(CPU)
+				.baseUnit("seconds")
+				.tag("uri", tag)
+				.register(this.registry)
+				.record(cpu / 1_000_000_000.0);
+		}
+	}
+
+}
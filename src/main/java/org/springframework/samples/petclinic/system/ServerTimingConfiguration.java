@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Opt-in {@link ServerTimingFilter}. Nothing is measured unless
+ * {@code petclinic.server-timing.enabled} is {@code true}, so the only cost when disabled
+ * is the counting done for the {@code hibernate.request.*} meters. The statements and
+ * flushes are timed by the {@link CompositeSessionEventListener.WithServerTiming} session
+ * event listener.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.server-timing.enabled", havingValue = "true")
+class ServerTimingConfiguration implements WebMvcConfigurer {
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new ServerTimingFilter.RenderTimingInterceptor());
+	}
+
+	@Bean
+	ServerTimingFilter serverTimingFilter() {
+		return new ServerTimingFilter();
+	}
+
+}
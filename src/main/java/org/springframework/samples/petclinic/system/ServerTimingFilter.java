@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Adds a {@code Server-Timing} header breaking the handling of each request down into the
+ * time spent executing SQL ({@code db}), flushing the persistence context ({@code flush},
+ * which includes its own SQL) and rendering the view ({@code render}), with the total
+ * time and the number of statements, for example
+ * {@code db;dur=1.9, flush;dur=0.0, render;dur=12.4, total;dur=18.0, queries;desc=5}.
+ * Browser developer tools and synthetic monitors show these next to the network timings.
+ * <p>
+ * Enabled with {@code petclinic.server-timing.enabled=true}. As the render time is only
+ * known once the view has been written, the body is buffered until the request completes,
+ * which also turns streamed pages into buffered ones.
+ */
+class ServerTimingFilter extends OncePerRequestFilter implements Ordered {
+
+	static final String HEADER = "Server-Timing";
+
+	@Override
+	public int getOrder() {
+		return RequestStatisticsFilter.ORDER + 1;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		TimedResponse timedResponse = new TimedResponse(response, System.nanoTime());
+		try {
+			filterChain.doFilter(request, timedResponse);
+		}
+		finally {
+			timedResponse.addTiming();
+			timedResponse.copyBodyToResponse();
+		}
+	}
+
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+	}
+
+	/**
+	 * Response adding the header before the body is written, or before a redirect or an
+	 * error commits it.
+	 */
+	private static final class TimedResponse extends ContentCachingResponseWrapper {
+
+		private final long start;
+
+		private boolean timed;
+
+		TimedResponse(HttpServletResponse response, long start) {
+			super(response);
+			this.start = start;
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			addTiming();
+			super.sendRedirect(location);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			addTiming();
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			addTiming();
+			super.sendError(sc);
+		}
+
+		void addTiming() {
+			RequestStatistics statistics = RequestStatistics.current();
+			if (this.timed || statistics == null || isCommitted()) {
+				return;
+			}
+			this.timed = true;
+			statistics.renderEnded();
+			setHeader(HEADER,
+					"db;dur=" + millis(statistics.getStatementNanos()) + ", flush;dur="
+							+ millis(statistics.getFlushNanos()) + ", render;dur=" + millis(statistics.getRenderNanos())
+							+ ", total;dur=" + millis(System.nanoTime() - this.start) + ", queries;desc="
+							+ statistics.getStatements());
+		}
+
+	}
+
+	/**
+	 * Measures the rendering of the view, from the end of the handler to the completion
+	 * of the request.
+	 */
+	static class RenderTimingInterceptor implements HandlerInterceptor {
+
+		@Override
+		public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+				ModelAndView modelAndView) {
+			RequestStatistics statistics = RequestStatistics.current();
+			if (statistics != null) {
+				statistics.renderStarted();
+			}
+		}
+
+		@Override
+		public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+				Exception ex) {
+			RequestStatistics statistics = RequestStatistics.current();
+			if (statistics != null) {
+				statistics.renderEnded();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.hibernate.cfg.SessionEventSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the {@link CompositeSessionEventListener}, the one session event listener
+ * Hibernate accepts, with the listeners of the features that are enabled.
+ */
+@Configuration(proxyBeanMethods = false)
+class SessionEventListenerConfiguration {
+
+	@Bean
+	HibernatePropertiesCustomizer sessionEventListener(
+			@Value("${petclinic.server-timing.enabled:false}") boolean serverTiming) {
+		Class<?> listener = serverTiming ? CompositeSessionEventListener.WithServerTiming.class
+				: CompositeSessionEventListener.class;
+		return (properties) -> properties.put(SessionEventSettings.AUTO_SESSION_EVENTS_LISTENER, listener.getName());
+	}
+
+}
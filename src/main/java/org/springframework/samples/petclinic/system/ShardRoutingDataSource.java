@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Data source of a sharded database, handing out connections to the shard selected for
+ * the current thread by {@link #call(int, Callable)}, and to the first shard otherwise.
+ * The first shard therefore also serves the reference data, which every shard holds a
+ * copy of.
+ * <p>
+ * Owners are spread by id: shard {@code k} of {@code n} holds the owners whose id is
+ * {@code k + 1} modulo {@code n}. A connection is bound to a transaction when it starts,
+ * so the shard must be selected before.
+ */
+class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+	private static final ThreadLocal<Integer> current = new ThreadLocal<>();
+
+	ShardRoutingDataSource(List<? extends DataSource> shards) {
+		Map<Object, Object> targets = new HashMap<>();
+		for (int shard = 0; shard < shards.size(); shard++) {
+			targets.put(shard, shards.get(shard));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(shards.get(0));
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Return the shard holding the owner with the given id.
+	 * @param ownerId the id of the owner
+	 * @param shards the number of shards
+	 * @return the index of the shard
+	 */
+	static int shardOf(int ownerId, int shards) {
+		return Math.floorMod(ownerId - 1, shards);
+	}
+
+	/**
+	 * Call the given action with the connections of the current thread taken from the
+	 * given shard.
+	 * @param shard the index of the shard
+	 * @param action the action
+	 * @return the result of the action
+	 * @throws Exception if the action fails
+	 */
+	static <T> T call(int shard, Callable<T> action) throws Exception {
+		Integer previous = current.get();
+		current.set(shard);
+		try {
+			return action.call();
+		}
+		finally {
+			if (previous != null) {
+				current.set(previous);
+			}
+			else {
+				current.remove();
+			}
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return current.get();
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.Closeable;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Spreads the owners, with their pets and visits, over the databases listed by
+ * {@code petclinic.sharding.shard-urls}, routing the {@link OwnerRepository} with an
+ * {@link OwnerShardingInterceptor}. Every shard also holds the reference data, the pet
+ * types, vets and specialties, which are read from the first one. Shards use the
+ * credentials and the {@code spring.datasource.hikari.*} settings of
+ * {@code spring.datasource.*}, whose url is ignored.
+ * <p>
+ * The ids of the owners, pets and visits inserted into shard {@code k} of {@code n} must
+ * be {@code k + 1} modulo {@code n}: a new owner then belongs to the shard it was saved
+ * to, and ids stay unique across shards. When the scripts of {@code spring.sql.init.*}
+ * initialize the shards, each shard keeps only its own owners and, on H2, its identity
+ * columns are adjusted. Other databases need their identities adjusted once, for instance
+ * with {@code auto_increment_increment} and {@code auto_increment_offset} on MySQL.
+ * <p>
+ * Sharding cannot be combined with the replicas of {@link ReplicaRoutingConfiguration}:
+ * both replace the data source, so the application fails to start when
+ * {@code petclinic.datasource.replica-urls} is set as well.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.sharding.shard-urls")
+class ShardingConfiguration {
+
+	private static final List<String> OWNER_TABLES = List.of("owners", "pets", "visits");
+
+	@Bean
+	Shards shards(DataSourceProperties properties, Environment environment,
+			@Value("${petclinic.sharding.shard-urls}") List<String> shardUrls) {
+		if (environment.containsProperty("petclinic.datasource.replica-urls")) {
+			throw new IllegalStateException("petclinic.sharding.shard-urls cannot be combined with "
+					+ "petclinic.datasource.replica-urls, remove one of them");
+		}
+		Binder binder = Binder.get(environment);
+		List<HikariDataSource> pools = new ArrayList<>();
+		for (String url : shardUrls) {
+			HikariDataSource pool = new HikariDataSource();
+			binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+			pool.setJdbcUrl(url);
+			pool.setUsername(properties.determineUsername());
+			pool.setPassword(properties.determinePassword());
+			pool.setPoolName("shard-" + pools.size());
+			pools.add(pool);
+		}
+		return new Shards(pools);
+	}
+
+	@Bean
+	ShardRoutingDataSource dataSource(Shards shards) {
+		return new ShardRoutingDataSource(shards.pools());
+	}
+
+	@Bean
+	SqlDataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(Shards shards,
+			SqlInitializationProperties settings) {
+		return new ShardInitializer(shards.pools(), settings);
+	}
+
+	@Bean
+	static BeanPostProcessor ownerShardingPostProcessor(
+			@Value("${petclinic.sharding.shard-urls}") List<String> shardUrls,
+			ObjectProvider<PlatformTransactionManager> transactionManager) {
+		OwnerShardingInterceptor interceptor = new OwnerShardingInterceptor(shardUrls.size(), transactionManager);
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+					// first advice, the shard must be selected before a transaction
+					// starts
+					factoryBean.addRepositoryFactoryCustomizer((factory) -> factory
+						.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+							if (repositoryInformation.getRepositoryInterface() == OwnerRepository.class) {
+								proxyFactory.addAdvice(0, interceptor);
+							}
+						}));
+				}
+				return bean;
+			}
+
+		};
+	}
+
+	/**
+	 * The connection pools of the shards, closed with the application context.
+	 */
+	record Shards(List<HikariDataSource> pools) implements Closeable {
+
+		@Override
+		public void close() {
+			this.pools.forEach(HikariDataSource::close);
+		}
+
+	}
+
+	/**
+	 * Runs the scripts of {@code spring.sql.init.*} on every shard and deletes the owners
+	 * that belong to other shards from the rows they inserted.
+	 */
+	static class ShardInitializer extends SqlDataSourceScriptDatabaseInitializer {
+
+		private final List<? extends DataSource> shards;
+
+		private final SqlInitializationProperties settings;
+
+		ShardInitializer(List<? extends DataSource> shards, SqlInitializationProperties settings) {
+			super(shards.get(0), settings);
+			this.shards = shards;
+			this.settings = settings;
+		}
+
+		@Override
+		public boolean initializeDatabase() {
+			boolean initialized = false;
+			for (int shard = 0; shard < this.shards.size(); shard++) {
+				DataSource dataSource = this.shards.get(shard);
+				if (new SqlDataSourceScriptDatabaseInitializer(dataSource, this.settings).initializeDatabase()) {
+					keepOwnersOf(shard, dataSource);
+					initialized = true;
+				}
+			}
+			return initialized;
+		}
+
+		private void keepOwnersOf(int shard, DataSource dataSource) {
+			JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+			int count = this.shards.size();
+			List<Integer> maxIds = new ArrayList<>();
+			for (String table : OWNER_TABLES) {
+				maxIds.add(jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Integer.class));
+			}
+			String elsewhere = "MOD(owner_id - 1, " + count + ") <> " + shard;
+			jdbc.update("DELETE FROM visits WHERE pet_id IN (SELECT id FROM pets WHERE " + elsewhere + ")");
+			jdbc.update("DELETE FROM pets WHERE " + elsewhere);
+			jdbc.update("DELETE FROM owners WHERE MOD(id - 1, " + count + ") <> " + shard);
+			if (isH2(dataSource)) {
+				for (int i = 0; i < OWNER_TABLES.size(); i++) {
+					int next = maxIds.get(i) + 1;
+					next += Math.floorMod(shard - (next - 1), count);
+					jdbc.execute("ALTER TABLE " + OWNER_TABLES.get(i) + " ALTER COLUMN id RESTART WITH " + next
+							+ " SET INCREMENT BY " + count);
+				}
+			}
+		}
+
+		private static boolean isH2(DataSource dataSource) {
+			try {
+				return "H2"
+					.equals(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+			}
+			catch (MetaDataAccessException ex) {
+				return false;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A statement that took longer than the threshold of the {@link SlowQueryLog}. The values
+ * of its parameters are redacted down to their types, and its execution plan is filled in
+ * once it has been obtained.
+ */
+public final class SlowQuery {
+
+	private final Instant timestamp;
+
+	private final String caller;
+
+	private final String sql;
+
+	private final List<String> parameters;
+
+	private final long durationMillis;
+
+	private volatile String plan;
+
+	SlowQuery(Instant timestamp, String caller, String sql, List<String> parameters, long durationMillis) {
+		this.timestamp = timestamp;
+		this.caller = caller;
+		this.sql = sql;
+		this.parameters = parameters;
+		this.durationMillis = durationMillis;
+	}
+
+	/**
+	 * Return when the statement completed.
+	 * @return the completion time
+	 */
+	public Instant getTimestamp() {
+		return this.timestamp;
+	}
+
+	/**
+	 * Return the repository method, or the application method, that ran the statement,
+	 * for example {@code OwnerRepository.findByLastName}.
+	 * @return the caller, or {@code null} if it could not be determined
+	 */
+	public String getCaller() {
+		return this.caller;
+	}
+
+	/**
+	 * Return the SQL of the statement.
+	 * @return the SQL
+	 */
+	public String getSql() {
+		return this.sql;
+	}
+
+	/**
+	 * Return the types of the bind parameters, in order, such as {@code String} or
+	 * {@code null}. Their values are not kept.
+	 * @return the parameter types
+	 */
+	public List<String> getParameters() {
+		return this.parameters;
+	}
+
+	/**
+	 * Return how long the execution of the statement took.
+	 * @return the duration in milliseconds
+	 */
+	public long getDurationMillis() {
+		return this.durationMillis;
+	}
+
+	/**
+	 * Return the execution plan reported by the database for the statement.
+	 * @return the plan, or {@code null} if it has not been obtained yet or the statement
+	 * is not a query
+	 */
+	public String getPlan() {
+		return this.plan;
+	}
+
+	void setPlan(String plan) {
+		this.plan = plan;
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.ClassUtils;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * Adds the statements executed through a data source that take longer than the threshold
+ * to the {@link SlowQueryLog}, with the method that ran them: the repository method if
+ * any, see {@link RepositoryCaller}, otherwise the innermost application method.
+ */
+class SlowQueryListener implements QueryExecutionListener {
+
+	private static final Log logger = LogFactory.getLog(SlowQueryListener.class);
+
+	private static final String APPLICATION_PACKAGE = "org.springframework.samples.petclinic.";
+
+	private static final StackWalker stackWalker = StackWalker.getInstance();
+
+	private final SlowQueryLog log;
+
+	private final DataSource dataSource;
+
+	/**
+	 * Create a listener for the statements of a data source.
+	 * @param log the log to add slow queries to
+	 * @param dataSource the data source the statements are executed on, without the
+	 * listener, used to obtain the plans
+	 */
+	SlowQueryListener(SlowQueryLog log, DataSource dataSource) {
+		this.log = log;
+		this.dataSource = dataSource;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		if (execInfo.getElapsedTime() < this.log.getThreshold().toMillis()) {
+			return;
+		}
+		String caller = caller();
+		for (QueryInfo queryInfo : queryInfoList) {
+			List<ParameterSetOperation> parameters = queryInfo.getParametersList().isEmpty() ? List.of()
+					: queryInfo.getParametersList().get(0);
+			SlowQuery query = new SlowQuery(Instant.now(), caller, queryInfo.getQuery(), redact(parameters),
+					execInfo.getElapsedTime());
+			if (logger.isWarnEnabled()) {
+				logger.warn("Slow query (" + query.getDurationMillis() + " ms) from " + caller + ": " + query.getSql());
+			}
+			this.log.add(query, parameters, this.dataSource);
+		}
+	}
+
+	private static String caller() {
+		String repositoryMethod = RepositoryCaller.current();
+		if (repositoryMethod != null) {
+			return repositoryMethod;
+		}
+		Optional<StackWalker.StackFrame> frame = stackWalker.walk(
+				(frames) -> frames
+					.filter((candidate) -> candidate.getClassName().startsWith(APPLICATION_PACKAGE)
+							&& !candidate.getClassName().startsWith(SlowQueryListener.class.getPackageName()))
+					.findFirst());
+		return frame
+			.map((candidate) -> ClassUtils.getShortName(candidate.getClassName()) + "." + candidate.getMethodName())
+			.orElse(null);
+	}
+
+	private static List<String> redact(List<ParameterSetOperation> parameters) {
+		List<ParameterSetOperation> sorted = new ArrayList<>(parameters);
+		sorted.sort(
+				Comparator.comparingInt((parameter) -> (parameter.getArgs()[0] instanceof Integer index) ? index : 0));
+		List<String> types = new ArrayList<>(sorted.size());
+		for (ParameterSetOperation parameter : sorted) {
+			Object value = parameter.getArgs().length > 1 ? parameter.getArgs()[1] : null;
+			types.add((value == null || ParameterSetOperation.isSetNullParameterOperation(parameter)) ? "null"
+					: value.getClass().getSimpleName());
+		}
+		return types;
+	}
+
+}
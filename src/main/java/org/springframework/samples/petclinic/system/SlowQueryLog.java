@@ -0,0 +1,166 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * Bounded log of the most recent {@link SlowQuery slow queries}, oldest first evicted.
+ * The plan of each query is obtained with {@code EXPLAIN} on a connection of its own, by
+ * a single background thread so that the request that ran the query is not delayed. Plans
+ * are captured for queries on H2, MySQL and PostgreSQL; when more queries are waiting for
+ * their plan than the log can hold, the new ones are kept without.
+ */
+class SlowQueryLog implements AutoCloseable {
+
+	private static final Set<String> EXPLAINED_DATABASES = Set.of("H2", "MySQL", "PostgreSQL");
+
+	private final Duration threshold;
+
+	private final int capacity;
+
+	private final Deque<SlowQuery> queries;
+
+	private final ThreadPoolExecutor explainer;
+
+	SlowQueryLog(Duration threshold, int capacity) {
+		this.threshold = threshold;
+		this.capacity = capacity;
+		this.queries = new ArrayDeque<>(capacity);
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("slow-query-explain-");
+		threadFactory.setDaemon(true);
+		this.explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity),
+				threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+	}
+
+	/**
+	 * Return the duration from which a statement is logged.
+	 * @return the threshold
+	 */
+	Duration getThreshold() {
+		return this.threshold;
+	}
+
+	/**
+	 * Add a query to the log, and obtain its plan in the background if it is a
+	 * {@code SELECT}.
+	 * @param query the query
+	 * @param parameters the parameters the query was executed with
+	 * @param dataSource the data source to obtain the plan from, which should not log the
+	 * statements it executes
+	 */
+	void add(SlowQuery query, List<ParameterSetOperation> parameters, DataSource dataSource) {
+		synchronized (this.queries) {
+			if (this.queries.size() == this.capacity) {
+				this.queries.removeFirst();
+			}
+			this.queries.addLast(query);
+		}
+		if (query.getSql().stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+			this.explainer.execute(() -> query.setPlan(explain(dataSource, query.getSql(), parameters)));
+		}
+	}
+
+	/**
+	 * Return the logged queries, most recent first.
+	 * @return the queries
+	 */
+	List<SlowQuery> getQueries() {
+		synchronized (this.queries) {
+			List<SlowQuery> queries = new ArrayList<>(this.queries);
+			Collections.reverse(queries);
+			return queries;
+		}
+	}
+
+	void clear() {
+		synchronized (this.queries) {
+			this.queries.clear();
+		}
+	}
+
+	@Override
+	public void close() {
+		this.explainer.shutdownNow();
+	}
+
+	private static String explain(DataSource dataSource, String sql, List<ParameterSetOperation> parameters) {
+		try (Connection connection = dataSource.getConnection()) {
+			String database = connection.getMetaData().getDatabaseProductName();
+			if (!EXPLAINED_DATABASES.contains(database)) {
+				return "EXPLAIN is not supported on " + database;
+			}
+			try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+				for (ParameterSetOperation parameter : parameters) {
+					parameter.getMethod().invoke(statement, parameter.getArgs());
+				}
+				try (ResultSet plan = statement.executeQuery()) {
+					return format(plan);
+				}
+			}
+		}
+		catch (SQLException | IllegalAccessException | InvocationTargetException ex) {
+			return "EXPLAIN failed: " + ex;
+		}
+	}
+
+	/**
+	 * Format a plan as its rows, one per line. Plans of a single column, as returned by
+	 * H2 and PostgreSQL, are kept as is, the columns of the others, such as the table
+	 * returned by MySQL, are written as {@code name=value} pairs.
+	 */
+	private static String format(ResultSet plan) throws SQLException {
+		ResultSetMetaData metaData = plan.getMetaData();
+		StringJoiner rows = new StringJoiner("\n");
+		while (plan.next()) {
+			if (metaData.getColumnCount() == 1) {
+				rows.add(plan.getString(1));
+			}
+			else {
+				StringJoiner row = new StringJoiner(", ");
+				for (int column = 1; column <= metaData.getColumnCount(); column++) {
+					row.add(metaData.getColumnLabel(column) + "=" + plan.getString(column));
+				}
+				rows.add(row.toString());
+			}
+		}
+		return rows.toString();
+	}
+
+}
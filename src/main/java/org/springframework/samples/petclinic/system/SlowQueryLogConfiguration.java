@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Keeps the queries slower than {@code petclinic.slow-query-log.threshold}, with their
+ * caller and plan, in a {@link SlowQueryLog} of {@code petclinic.slow-query-log.capacity}
+ * entries exposed by the {@code slowqueries} actuator endpoint. Disabled with
+ * {@code petclinic.slow-query-log.enabled=false}, in which case the data sources are no
+ * longer proxied.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.slow-query-log.enabled", havingValue = "true", matchIfMissing = true)
+class SlowQueryLogConfiguration {
+
+	@Bean
+	SlowQueryLog slowQueryLog(@Value("${petclinic.slow-query-log.threshold:100ms}") Duration threshold,
+			@Value("${petclinic.slow-query-log.capacity:100}") int capacity) {
+		return new SlowQueryLog(threshold, capacity);
+	}
+
+	@Bean
+	SlowQueryLogEndpoint slowQueryLogEndpoint(SlowQueryLog slowQueryLog) {
+		return new SlowQueryLogEndpoint(slowQueryLog);
+	}
+
+	@Bean
+	static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource) {
+					return ProxyDataSourceBuilder.create(beanName, dataSource)
+						.listener(new SlowQueryListener(slowQueryLog.getObject(), dataSource))
+						.build();
+				}
+				return bean;
+			}
+
+		};
+	}
+
+	@Bean
+	static BeanPostProcessor repositoryCallerPostProcessor() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+					factoryBean.addRepositoryFactoryCustomizer((factory) -> factory.addRepositoryProxyPostProcessor(
+							(proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+									new RepositoryCaller.Interceptor(repositoryInformation.getRepositoryInterface()))));
+				}
+				return bean;
+			}
+
+		};
+	}
+
+}
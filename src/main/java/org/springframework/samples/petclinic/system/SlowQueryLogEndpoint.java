@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * {@code slowqueries} actuator endpoint, listing the queries of the {@link SlowQueryLog}
+ * with their plans, most recent first. A {@code DELETE} clears the log, for example to
+ * check whether a plan regression is gone.
+ */
+@Endpoint(id = "slowqueries")
+class SlowQueryLogEndpoint {
+
+	private final SlowQueryLog log;
+
+	SlowQueryLogEndpoint(SlowQueryLog log) {
+		this.log = log;
+	}
+
+	@ReadOperation
+	List<SlowQuery> slowQueries() {
+		return this.log.getQueries();
+	}
+
+	@DeleteOperation
+	void clear() {
+		this.log.clear();
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs the startup steps that took the longest once the application is ready, when it was
+ * started with a {@link BufferingApplicationStartup} as by
+ * {@code PetClinicApplication.main}. Steps are ranked by their own time, excluding the
+ * time of the steps they contain, so that for example the execution of {@code schema.sql}
+ * and {@code data.sql} and the building of the JPA metamodel show up as the instantiation
+ * of the {@code dataSourceScriptDatabaseInitializer} and {@code entityManagerFactory}
+ * beans rather than as part of every bean depending on them. The whole timeline is
+ * available from the {@code startup} actuator endpoint.
+ */
+@Component
+class StartupReport implements ApplicationListener<ApplicationReadyEvent> {
+
+	private static final Log logger = LogFactory.getLog(StartupReport.class);
+
+	private static final int LIMIT = 20;
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		if (logger.isInfoEnabled() && event.getApplicationContext()
+			.getApplicationStartup() instanceof BufferingApplicationStartup startup) {
+			logger.info(format(event.getTimeTaken(), startup.getBufferedTimeline(), LIMIT));
+		}
+	}
+
+	/**
+	 * Format the slowest steps of a startup timeline, one per line.
+	 * @param timeTaken the time the startup took, or {@code null} if unknown
+	 * @param timeline the timeline
+	 * @param limit the number of steps to list
+	 * @return the report
+	 */
+	static String format(Duration timeTaken, StartupTimeline timeline, int limit) {
+		StringBuilder report = new StringBuilder();
+		if (timeTaken != null) {
+			report.append("Started in ").append(timeTaken.toMillis()).append(" ms, s");
+		}
+		else {
+			report.append("S");
+		}
+		report.append("lowest steps by own time (own, total):");
+		for (Step step : slowest(timeline, limit)) {
+			report.append(String.format("%n%7d ms %7d ms  %s", step.ownTime().toMillis(), step.duration().toMillis(),
+					step.description()));
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Return the steps of a startup timeline that took the longest, excluding the time of
+	 * the steps they contain.
+	 * @param timeline the timeline
+	 * @param limit the number of steps to return
+	 * @return the steps, slowest first
+	 */
+	static List<Step> slowest(StartupTimeline timeline, int limit) {
+		Map<Long, Duration> childTime = new HashMap<>();
+		for (TimelineEvent event : timeline.getEvents()) {
+			Long parentId = event.getStartupStep().getParentId();
+			if (parentId != null) {
+				childTime.merge(parentId, event.getDuration(), Duration::plus);
+			}
+		}
+		return timeline.getEvents()
+			.stream()
+			.map((event) -> new Step(describe(event.getStartupStep()), event.getDuration(),
+					event.getDuration().minus(childTime.getOrDefault(event.getStartupStep().getId(), Duration.ZERO))))
+			.sorted(Comparator.comparing(Step::ownTime).reversed())
+			.limit(limit)
+			.toList();
+	}
+
+	private static String describe(StartupStep step) {
+		StringJoiner description = new StringJoiner(" ");
+		description.add(step.getName());
+		for (StartupStep.Tag tag : step.getTags()) {
+			description.add(tag.getKey() + "=" + tag.getValue());
+		}
+		return description.toString();
+	}
+
+	/**
+	 * A startup step.
+	 *
+	 * @param description the name of the step and its tags
+	 * @param duration the time the step took
+	 * @param ownTime the time the step took, excluding the steps it contains
+	 */
+	record Step(String description, Duration duration, Duration ownTime) {
+
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Factory for views that render a Thymeleaf template while its rows are still being read
+ * from a database cursor. The template iterates the rows attribute with a plain
+ * {@code th:each}, each row is rendered as soon as it is fetched and the response is
+ * flushed every {@code petclinic.streaming.chunk-size} rows, so the first bytes reach the
+ * client before the query is exhausted and only one chunk is held in memory.
+ * <p>
+ * Rows should be projections rather than entities: entities read from the cursor stay in
+ * the persistence context until the rendering ends, and their eager associations are
+ * loaded row by row.
+ * <p>
+ * The cursor and the template rendering share one read-only transaction, independently of
+ * open-in-view. As the response is committed early, errors in the middle of the rendering
+ * can no longer be turned into an error page.
+ */
+@Component
+public class StreamingViews {
+
+	private final ThymeleafViewResolver viewResolver;
+
+	private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+	private final int chunkSize;
+
+	public StreamingViews(ThymeleafViewResolver viewResolver,
+			ObjectProvider<PlatformTransactionManager> transactionManager,
+			@Value("${petclinic.streaming.chunk-size:50}") int chunkSize) {
+		this.viewResolver = viewResolver;
+		this.transactionManager = transactionManager;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Create a view rendering the given template with the rows exposed as an iterator
+	 * under the given model attribute.
+	 * @param viewName the name of the Thymeleaf template
+	 * @param attributeName the model attribute to iterate in the template
+	 * @param rows opens the cursor, called inside the rendering transaction
+	 * @return the view
+	 */
+	public View streaming(String viewName, String attributeName, Supplier<? extends Stream<?>> rows) {
+		return new StreamingView(viewName, attributeName, rows);
+	}
+
+	private class StreamingView implements View {
+
+		private final String viewName;
+
+		private final String attributeName;
+
+		private final Supplier<? extends Stream<?>> rows;
+
+		StreamingView(String viewName, String attributeName, Supplier<? extends Stream<?>> rows) {
+			this.viewName = viewName;
+			this.attributeName = attributeName;
+			this.rows = rows;
+		}
+
+		@Override
+		public String getContentType() {
+			return viewResolver.getContentType();
+		}
+
+		@Override
+		public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response)
+				throws Exception {
+			View template = viewResolver.resolveViewName(this.viewName, RequestContextUtils.getLocale(request));
+			TransactionTemplate transaction = new TransactionTemplate(transactionManager.getObject());
+			transaction.setReadOnly(true);
+			transaction.executeWithoutResult(status -> {
+				try (Stream<?> cursor = this.rows.get()) {
+					Map<String, Object> streamingModel = (model != null) ? new HashMap<>(model) : new HashMap<>();
+					streamingModel.put(this.attributeName, new FlushingIterator<>(cursor.iterator(), response));
+					template.render(streamingModel, request, response);
+					response.flushBuffer();
+				}
+				catch (RuntimeException ex) {
+					throw ex;
+				}
+				catch (Exception ex) {
+					throw new IllegalStateException("Could not render view '" + this.viewName + "'", ex);
+				}
+			});
+		}
+
+	}
+
+	/**
+	 * Iterator flushing what has been rendered so far when the template asks for the
+	 * first row and after every chunk.
+	 */
+	private class FlushingIterator<T> implements Iterator<T> {
+
+		private final Iterator<T> rows;
+
+		private final HttpServletResponse response;
+
+		private boolean started;
+
+		private int count;
+
+		FlushingIterator(Iterator<T> rows, HttpServletResponse response) {
+			this.rows = rows;
+			this.response = response;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (!this.started) {
+				this.started = true;
+				flush();
+			}
+			return this.rows.hasNext();
+		}
+
+		@Override
+		public T next() {
+			if (this.count > 0 && this.count % chunkSize == 0) {
+				flush();
+			}
+			this.count++;
+			return this.rows.next();
+		}
+
+		private void flush() {
+			try {
+				this.response.flushBuffer();
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+	}
+
+}
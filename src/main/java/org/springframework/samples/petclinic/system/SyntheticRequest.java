@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.List;
+
+/**
+ * A request sent by the application to itself, to load and compile the code handling it
+ * before real requests come in. The bodies of the {@code POST}s fail validation, so that
+ * the error handling is exercised and the database is left unchanged.
+ *
+ * @param method the HTTP method
+ * @param path the path, from the root of the application
+ * @param contentType the type of the body, or the accepted type if there is no body
+ * @param body the body, or {@code null}
+ */
+record SyntheticRequest(String method, String path, String contentType, String body) {
+
+	private static final String FORM = "application/x-www-form-urlencoded";
+
+	/**
+	 * One request to each of the main routes.
+	 */
+	static final List<SyntheticRequest> ROUTES = List.of(new SyntheticRequest("GET", "/", null, null),
+			new SyntheticRequest("GET", "/owners/find", null, null),
+			new SyntheticRequest("GET", "/owners?lastName=", null, null),
+			new SyntheticRequest("GET", "/owners?lastName=Franklin", null, null),
+			new SyntheticRequest("GET", "/owners/1", null, null),
+			new SyntheticRequest("GET", "/owners/new", null, null),
+			new SyntheticRequest("POST", "/owners/new", FORM, "firstName="),
+			new SyntheticRequest("GET", "/owners/1/edit", null, null),
+			new SyntheticRequest("GET", "/owners/1/pets/new", null, null),
+			new SyntheticRequest("POST", "/owners/1/pets/new", FORM, "name="),
+			new SyntheticRequest("GET", "/owners/1/pets/1/edit", null, null),
+			new SyntheticRequest("GET", "/owners/1/pets/1/visits/new", null, null),
+			new SyntheticRequest("POST", "/owners/1/pets/1/visits/new", FORM, "description="),
+			new SyntheticRequest("GET", "/owners/export", null, null),
+			new SyntheticRequest("GET", "/vets.html", null, null),
+			new SyntheticRequest("GET", "/vets", "application/json", null),
+			new SyntheticRequest("GET", "/vets", "application/xml", null),
+			new SyntheticRequest("POST", "/graphql", "application/json",
+					"{\"query\":\"{ owner(id: 1) { lastName pets { name visits { description } } } vets { lastName } }\"}"),
+			new SyntheticRequest("GET", "/oups", null, null),
+			new SyntheticRequest("GET", "/actuator/health", null, null));
+
+	/**
+	 * Send the request and discard the response.
+	 * @param client the client
+	 * @param base the URL of the root of the application
+	 * @return the status of the response
+	 * @throws IOException if the request fails
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	int send(HttpClient client, String base) throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + this.path))
+			.method(this.method, (this.body != null) ? BodyPublishers.ofString(this.body) : BodyPublishers.noBody());
+		if (this.contentType != null) {
+			request.header(this.body != null ? "Content-Type" : "Accept", this.contentType);
+		}
+		return client.send(request.build(), BodyHandlers.discarding()).statusCode();
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds the time a Hibernate session spends executing statements and flushing to the
+ * {@link RequestStatistics} of the current request. One instance per session is created
+ * by the {@link CompositeSessionEventListener} when {@link ServerTimingFilter server
+ * timing} is enabled.
+ */
+class TimingSessionEventListener implements SessionEventListener {
+
+	private long statementStart;
+
+	private long flushStart;
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		this.statementStart = System.nanoTime();
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		statementExecuted();
+	}
+
+	@Override
+	public void jdbcExecuteBatchStart() {
+		this.statementStart = System.nanoTime();
+	}
+
+	@Override
+	public void jdbcExecuteBatchEnd() {
+		statementExecuted();
+	}
+
+	@Override
+	public void flushStart() {
+		this.flushStart = System.nanoTime();
+	}
+
+	@Override
+	public void flushEnd(int numberOfEntities, int numberOfCollections) {
+		RequestStatistics statistics = RequestStatistics.current();
+		if (statistics != null) {
+			statistics.flushed(System.nanoTime() - this.flushStart);
+		}
+	}
+
+	private void statementExecuted() {
+		RequestStatistics statistics = RequestStatistics.current();
+		if (statistics != null) {
+			statistics.statementExecuted(System.nanoTime() - this.statementStart);
+		}
+	}
+
+}
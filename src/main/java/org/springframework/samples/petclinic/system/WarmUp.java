@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Warm-up phase run before the application reports itself ready. When
+ * {@code petclinic.warm-up.duration} is positive, the connection pool is filled up to its
+ * minimum idle size, the vets cache and the pet types are loaded, and the
+ * {@link SyntheticRequest#ROUTES main routes} are requested in a loop for that duration,
+ * so that the JIT compiler has compiled their hot paths by the time real traffic comes
+ * in. Application runners are called before the readiness state changes to
+ * {@code ACCEPTING_TRAFFIC}, so the readiness probe stays down until the warm-up is over.
+ * <p>
+ * The time of the first and of the last round of requests are logged, showing how much
+ * slower the requests would have been without the warm-up.
+ */
+@Component
+class WarmUp implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(WarmUp.class);
+
+	// without the route failing on purpose, which would log an error for every round
+	private static final List<SyntheticRequest> ROUTES = SyntheticRequest.ROUTES.stream()
+		.filter((request) -> !request.path().equals("/oups"))
+		.toList();
+
+	private final Duration duration;
+
+	private final Environment environment;
+
+	private final ObjectProvider<DataSource> dataSource;
+
+	private final ObjectProvider<VetRepository> vets;
+
+	private final ObjectProvider<OwnerRepository> owners;
+
+	WarmUp(@Value("${petclinic.warm-up.duration:0s}") Duration duration, Environment environment,
+			ObjectProvider<DataSource> dataSource, ObjectProvider<VetRepository> vets,
+			ObjectProvider<OwnerRepository> owners) {
+		this.duration = duration;
+		this.environment = environment;
+		this.dataSource = dataSource;
+		this.vets = vets;
+		this.owners = owners;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws SQLException {
+		if (this.duration.isZero() || this.duration.isNegative()) {
+			return;
+		}
+		long start = System.nanoTime();
+		int connections = fillPool();
+		VetRepository vets = this.vets.getIfAvailable();
+		int vetCount = (vets != null) ? vets.findAll().size() : 0;
+		OwnerRepository owners = this.owners.getIfAvailable();
+		int petTypeCount = (owners != null) ? owners.findPetTypes().size() : 0;
+		String port = this.environment.getProperty("local.server.port");
+		List<Long> rounds = (port != null) ? replay("http://localhost:" + port, start) : List.of();
+		if (logger.isInfoEnabled()) {
+			StringBuilder report = new StringBuilder();
+			report.append(String.format(
+					"Warm-up completed in %d ms: %d pooled connections, %d vets cached, "
+							+ "%d pet types loaded, %d rounds of %d requests",
+					elapsedMillis(start), connections, vetCount, petTypeCount, rounds.size(), ROUTES.size()));
+			if (!rounds.isEmpty()) {
+				report.append(String.format(", first round %d ms, last round %d ms", rounds.get(0),
+						rounds.get(rounds.size() - 1)));
+			}
+			logger.info(report);
+		}
+	}
+
+	/**
+	 * Borrow as many connections as the pool keeps idle at the same time, so that they
+	 * are all opened now rather than by the first requests.
+	 */
+	private int fillPool() throws SQLException {
+		DataSource dataSource = this.dataSource.getIfAvailable();
+		if (dataSource == null) {
+			return 0;
+		}
+		int size = dataSource.isWrapperFor(HikariDataSource.class)
+				? dataSource.unwrap(HikariDataSource.class).getMinimumIdle() : 1;
+		List<Connection> connections = new ArrayList<>(size);
+		try {
+			for (int i = 0; i < size; i++) {
+				connections.add(dataSource.getConnection());
+			}
+		}
+		finally {
+			for (Connection connection : connections) {
+				connection.close();
+			}
+		}
+		return connections.size();
+	}
+
+	/**
+	 * Request the routes in a loop until the warm-up duration has elapsed, returning the
+	 * time each round took, in milliseconds.
+	 */
+	private List<Long> replay(String base, long start) {
+		HttpClient client = HttpClient.newHttpClient();
+		List<Long> rounds = new ArrayList<>();
+		long deadline = start + this.duration.toNanos();
+		try {
+			while (System.nanoTime() < deadline) {
+				long round = System.nanoTime();
+				for (SyntheticRequest request : ROUTES) {
+					request.send(client, base);
+				}
+				rounds.add(elapsedMillis(round));
+			}
+		}
+		catch (IOException ex) {
+			logger.warn("Warm-up request failed, stopping the warm-up", ex);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		return rounds;
+	}
+
+	private static long elapsedMillis(long start) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Registers compact binary representations (CBOR, {@code application/cbor}, and Smile,
+ * {@code application/x-jackson-smile}) next to JSON and XML for the REST resources.
+ * Clients pick a format through the {@code Accept} header.
+ * <p>
+ * The converters are created once and shared by all requests, so the serializers cached
+ * by their object mappers are reused instead of being rebuilt per response.
+ */
+@Configuration(proxyBeanMethods = false)
+class WebConfiguration implements WebMvcConfigurer {
+
+	private final MappingJackson2CborHttpMessageConverter cborConverter;
+
+	private final MappingJackson2SmileHttpMessageConverter smileConverter;
+
+	WebConfiguration(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+		this.cborConverter = new MappingJackson2CborHttpMessageConverter(
+				builders.getObject().factory(new CBORFactory()).build());
+		this.smileConverter = new MappingJackson2SmileHttpMessageConverter(
+				builders.getObject().factory(new SmileFactory()).build());
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.add(this.cborConverter);
+		converters.add(this.smileConverter);
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+
+/**
+ * GraphQL entry points for vets and their specialties. The vet list is served from the
+ * "vets" cache, specialties are read with one {@code IN} query on all vets of a query,
+ * however many there are.
+ */
+@Controller
+class VetGraphQlController {
+
+	private final VetRepository vetRepository;
+
+	public VetGraphQlController(VetRepository vetRepository) {
+		this.vetRepository = vetRepository;
+	}
+
+	@QueryMapping
+	public Collection<Vet> vets() {
+		return this.vetRepository.findAll();
+	}
+
+	@BatchMapping
+	public List<List<Specialty>> specialties(List<Vet> vets) {
+		Map<Integer, List<Specialty>> specialtiesByVet = new HashMap<>();
+		for (Vet vet : this.vetRepository.findVetsWithSpecialties(vets)) {
+			specialtiesByVet.put(vet.getId(), vet.getSpecialties());
+		}
+		List<List<Specialty>> specialties = new ArrayList<>(vets.size());
+		for (Vet vet : vets) {
+			specialties.add(specialtiesByVet.getOrDefault(vet.getId(), List.of()));
+		}
+		return specialties;
+	}
+
+}
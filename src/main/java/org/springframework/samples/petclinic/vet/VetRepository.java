@@ -19,10 +19,13 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository class for <code>Vet</code> domain objects All method names are compliant
@@ -45,6 +48,15 @@ public interface VetRepository extends Repository<Vet, Integer> {
 	@Cacheable("vets")
 	Collection<Vet> findAll() throws DataAccessException;
 
+	/**
+	 * Retrieve the given <code>Vet</code>s with their specialties.
+	 * @param vets the vets to load
+	 * @return the vets, in no particular order
+	 */
+	@Query("SELECT DISTINCT vet FROM Vet vet left join fetch vet.specialties WHERE vet IN :vets")
+	@Transactional(readOnly = true)
+	List<Vet> findVetsWithSpecialties(@Param("vets") Collection<Vet> vets);
+
 	/**
 	 * Retrieve all <code>Vet</code>s from data store in Pages
 	 * @param pageable
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Write-only converter that streams {@link Vets} as XML with a StAX writer. The output is
+ * identical to the JAXB marshalling of the {@code @XmlRootElement} annotated
+ * {@link Vets}, but avoids the reflective object graph walk and writes each vet to the
+ * response as it goes.
+ * <p>
+ * It is not registered, the vets resource is written by the JAXB converter: measured by
+ * {@code VetsSerializationBenchmark}, it is no faster than JAXB for 6 or for 100 vets,
+ * and allocates less only for the larger list, 69KB instead of 152KB, but more for the 6
+ * vets of the default dataset, 29KB instead of 12KB.
+ * <p>
+ * The {@link Vets} themselves are built from the {@code vets} cache of
+ * {@link VetRepository#findAll()}, so the list is already in memory: streaming it from a
+ * database cursor instead would trade that cache hit for a query on every request.
+ *
+ * @see Vets
+ */
+public class VetsXmlHttpMessageConverter extends AbstractHttpMessageConverter<Vets> {
+
+	private static final byte[] XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+		.getBytes(StandardCharsets.UTF_8);
+
+	private final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+
+	public VetsXmlHttpMessageConverter() {
+		super(MediaType.APPLICATION_XML, MediaType.TEXT_XML, new MediaType("application", "*+xml"));
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return Vets.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected Vets readInternal(Class<? extends Vets> clazz, HttpInputMessage inputMessage)
+			throws HttpMessageNotReadableException {
+		throw new HttpMessageNotReadableException("Reading vets from XML is not supported", inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(Vets vets, HttpOutputMessage outputMessage)
+			throws IOException, HttpMessageNotWritableException {
+		write(vets, outputMessage.getBody());
+	}
+
+	/**
+	 * Write the given vets as XML to the given stream, leaving the stream open.
+	 * @param vets the vets to write
+	 * @param out the stream to write to
+	 */
+	public void write(Vets vets, OutputStream out) throws IOException {
+		OutputStream body = StreamUtils.nonClosing(out);
+		body.write(XML_DECLARATION);
+		// the JDK writer encodes character by character, so buffer the encoder
+		Writer encoder = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), 8192);
+		try {
+			XMLStreamWriter writer = this.outputFactory.createXMLStreamWriter(encoder);
+			writer.writeStartElement("vets");
+			for (Vet vet : vets.getVetList()) {
+				List<Specialty> specialties = vet.getSpecialties();
+				if (vet.getId() == null && vet.getFirstName() == null && vet.getLastName() == null
+						&& specialties.isEmpty()) {
+					writer.writeEmptyElement("vetList");
+					continue;
+				}
+				writer.writeStartElement("vetList");
+				writeElement(writer, "id", vet.getId());
+				writeElement(writer, "firstName", vet.getFirstName());
+				writeElement(writer, "lastName", vet.getLastName());
+				for (Specialty specialty : specialties) {
+					if (specialty.getId() == null && specialty.getName() == null) {
+						writer.writeEmptyElement("specialties");
+						continue;
+					}
+					writer.writeStartElement("specialties");
+					writeElement(writer, "id", specialty.getId());
+					writeElement(writer, "name", specialty.getName());
+					writer.writeEndElement();
+				}
+				writer.writeEndElement();
+			}
+			writer.writeEndElement();
+			writer.close();
+			encoder.flush();
+		}
+		catch (XMLStreamException ex) {
+			throw new HttpMessageNotWritableException("Could not write vets as XML", ex);
+		}
+	}
+
+	private void writeElement(XMLStreamWriter writer, String name, Object value) throws XMLStreamException {
+		// like JAXB, null values are omitted and elements without content are written
+		// in their short form
+		if (value != null) {
+			writer.writeStartElement(name);
+			writer.writeCharacters(value.toString());
+			writer.writeEndElement();
+		}
+	}
+
+}
@@ -53,3 +53,14 @@ CREATE TABLE IF NOT EXISTS visits (
   description VARCHAR(255),
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS data_generation (
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
+  generation BIGINT NOT NULL
+) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS cache_invalidations (
+  id BIGINT UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  cache_name VARCHAR(80) NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) engine=InnoDB;
@@ -50,3 +50,14 @@ CREATE TABLE IF NOT EXISTS visits (
   description TEXT
 );
 CREATE INDEX ON visits (pet_id);
+
+CREATE TABLE IF NOT EXISTS data_generation (
+  id         INT PRIMARY KEY,
+  generation BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS cache_invalidations (
+  id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  cache_name VARCHAR(80) NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.samples.petclinic.dataset.GeneratedDataset;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Integration tests for the GraphQL batch mappings with more parents than
+ * {@code hibernate.default_batch_fetch_size}, asserting that each relation is still read
+ * with one statement.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureGraphQlTester
+@GeneratedDataset(owners = 100, petsPerOwner = "2:1", vets = 70, specialties = 5)
+class ClinicGraphQlBatchIntegrationTests {
+
+	@Autowired
+	private GraphQlTester graphQlTester;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setup() {
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		this.statistics.clear();
+	}
+
+	@Test
+	void testPetsOfAPageOfOwnersAreReadWithOneStatementPerRelation() {
+		this.graphQlTester.document("""
+				{
+				  owners(lastName: "", size: 50) {
+				    id pets { id name type { name } visits { id date description } }
+				  }
+				}
+				""").execute().path("owners[*].pets[*].id").entityList(Integer.class).hasSizeGreaterThan(64);
+
+		// page + count, the pets loaded with the page, then pets, pet types and visits
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(6);
+	}
+
+	@Test
+	void testSpecialtiesOfAllVetsAreReadWithOneStatement() {
+		String query = "{ vets { lastName specialties { name } } }";
+		this.graphQlTester.document(query).execute().path("vets").entityList(Object.class).hasSize(76);
+
+		// the vets are cached now, only the specialties of the mapping are read
+		this.statistics.clear();
+		this.graphQlTester.document(query).execute().path("vets").entityList(Object.class).hasSize(76);
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.graphql.test.tester.GraphQlTester;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Integration tests for the GraphQL endpoint, asserting that nested queries are resolved
+ * with a bounded number of SQL statements.
+ */
+@SpringBootTest(properties = { "spring.jpa.properties.hibernate.generate_statistics=true",
+		"petclinic.graphql.max-complexity=30" })
+@AutoConfigureGraphQlTester
+class ClinicGraphQlIntegrationTests {
+
+	private static final String OWNERS_QUERY = """
+			query($size: Int) {
+			  owners(lastName: "", size: $size) {
+			    id firstName lastName
+			    pets { id name type { name } visits { id date description } }
+			  }
+			}
+			""";
+
+	@Autowired
+	private GraphQlTester graphQlTester;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setup() {
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		this.statistics.clear();
+	}
+
+	@Test
+	void testOwnerWithPetsAndVisits() {
+		this.graphQlTester.document("{ owner(id: 6) { lastName pets { name type { name } visits { description } } } }")
+			.execute()
+			.path("owner.lastName")
+			.entity(String.class)
+			.isEqualTo("Coleman")
+			.path("owner.pets[*].name")
+			.entityList(String.class)
+			.containsExactly("Max", "Samantha")
+			.path("owner.pets[0].visits[*].description")
+			.entityList(String.class)
+			.hasSize(2);
+	}
+
+	@Test
+	void testNestedOwnersQueryHasBoundedStatementCount() {
+		this.graphQlTester.document(OWNERS_QUERY)
+			.variable("size", 2)
+			.execute()
+			.path("owners")
+			.entityList(Object.class)
+			.hasSize(2);
+		long statementsForTwoOwners = this.statistics.getPrepareStatementCount();
+
+		this.statistics.clear();
+		this.graphQlTester.document(OWNERS_QUERY)
+			.variable("size", 10)
+			.execute()
+			.path("owners")
+			.entityList(Object.class)
+			.hasSize(10);
+		long statementsForTenOwners = this.statistics.getPrepareStatementCount();
+
+		// page + count, the pets loaded with the page, then pets, pet types and visits
+		assertThat(statementsForTenOwners).isEqualTo(6);
+		assertThat(statementsForTenOwners).isLessThanOrEqualTo(statementsForTwoOwners);
+	}
+
+	@Test
+	void testVetsWithSpecialtiesHasBoundedStatementCount() {
+		this.cacheManager.getCache("vets").clear();
+		this.graphQlTester.document("{ vets { lastName specialties { name } } }")
+			.execute()
+			.path("vets")
+			.entityList(Object.class)
+			.hasSize(6);
+		// vets, the specialties loaded with them, then the specialties of the mapping
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+
+	@Test
+	void testQueryAboveComplexityLimitIsRejected() {
+		this.graphQlTester.document("""
+				{
+				  a: owners { id firstName lastName pets { id name type { name } visits { id date description } } }
+				  b: owners { id firstName lastName pets { id name type { name } visits { id date description } } }
+				  c: owners { id firstName lastName pets { id name type { name } visits { id date description } } }
+				}
+				""").execute().errors().satisfy(errors -> assertThat(errors).isNotEmpty());
+		assertThat(this.statistics.getPrepareStatementCount()).isZero();
+	}
+
+}
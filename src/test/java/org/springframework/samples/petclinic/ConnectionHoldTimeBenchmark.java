@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Measures how long each request keeps a pooled database connection, with and without
+ * open-in-view. Starts the application once per mode, replays the same pages and reports
+ * the {@code hikaricp.connections.usage} timer per request. Run with
+ * {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.springframework.samples.petclinic.ConnectionHoldTimeBenchmark}.
+ */
+public final class ConnectionHoldTimeBenchmark {
+
+	private static final List<String> PAGES = List.of("/owners?lastName=", "/owners/6", "/owners/10",
+			"/owners/6/pets/7/visits/new", "/vets.html?page=1");
+
+	private static final int WARMUP = 200;
+
+	private static final int REQUESTS = 1000;
+
+	private ConnectionHoldTimeBenchmark() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		System.out.printf("%-12s %12s %14s %14s%n", "open-in-view", "checkouts", "held/request", "max held");
+		for (boolean openInView : new boolean[] { true, false }) {
+			run(openInView);
+		}
+	}
+
+	private static void run(boolean openInView) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PetClinicApplication.class)
+			.properties("server.port=0", "spring.jpa.open-in-view=" + openInView,
+					"petclinic.fragment-cache.max-chars=0", "spring.docker.compose.enabled=false",
+					"logging.level.root=WARN")
+			.run()) {
+			String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+			HttpClient client = HttpClient.newHttpClient();
+			MeterRegistry registry = context.getBean(MeterRegistry.class);
+			for (int i = 0; i < WARMUP; i++) {
+				get(client, base + PAGES.get(i % PAGES.size()));
+			}
+			Timer usage = registry.get("hikaricp.connections.usage").timer();
+			long checkouts = usage.count();
+			double held = usage.totalTime(TimeUnit.MICROSECONDS);
+			for (int i = 0; i < REQUESTS; i++) {
+				get(client, base + PAGES.get(i % PAGES.size()));
+			}
+			System.out.printf("%-12s %12.2f %12.0fus %12.0fus%n", openInView,
+					(usage.count() - checkouts) / (double) REQUESTS,
+					(usage.totalTime(TimeUnit.MICROSECONDS) - held) / REQUESTS, usage.max(TimeUnit.MICROSECONDS));
+		}
+	}
+
+	private static void get(HttpClient client, String url) throws Exception {
+		HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(url)).build(),
+				HttpResponse.BodyHandlers.discarding());
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException(url + " returned " + response.statusCode());
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Renders every page with open-in-view disabled. Any view touching an association that
+ * its handler did not load fails with a {@code LazyInitializationException}, as the
+ * entities are detached by the time the view is rendered.
+ */
+@SpringBootTest(properties = { "spring.jpa.open-in-view=false",
+		"spring.jpa.properties.hibernate.enable_lazy_load_no_trans=false" })
+@AutoConfigureMockMvc
+class OpenInViewDisabledIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@ParameterizedTest
+	@ValueSource(strings = { "/", "/owners/find", "/owners?lastName=", "/owners?lastName=Davis", "/owners/export",
+			"/owners/6", "/owners/6/edit", "/owners/6/pets/new", "/owners/6/pets/7/edit", "/owners/6/pets/7/visits/new",
+			"/vets.html", "/vets" })
+	void testPageRendersWithoutOpenSession(String url) throws Exception {
+		this.mockMvc.perform(get(url)).andExpect(status().isOk());
+	}
+
+	@Test
+	void testVetsRenderAsXml() throws Exception {
+		this.mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_XML)).andExpect(status().isOk());
+	}
+
+	@Test
+	void testOwnerDetailsShowVisits() throws Exception {
+		assertThat(render("/owners/6")).contains("Samantha", "Max", "rabies shot", "neutered");
+	}
+
+	@Test
+	void testEditedPetIsSaved() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/edit", 2, 2).param("name", "Basil the Great")
+				.param("type", "hamster")
+				.param("birthDate", "2012-08-06"))
+			.andExpect(status().is3xxRedirection());
+
+		assertThat(render("/owners/2")).contains("Basil the Great");
+	}
+
+	@Test
+	void testEditedOwnerKeepsPetsAndVisits() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/edit", 8).param("firstName", "Maria")
+				.param("lastName", "Escobito")
+				.param("address", "345 Maple St.")
+				.param("city", "Madison")
+				.param("telephone", "6085557683"))
+			.andExpect(status().is3xxRedirection());
+
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 8, 10).param("date", "2024-01-02")
+				.param("description", "checkup after the move"))
+			.andExpect(status().is3xxRedirection());
+
+		assertThat(render("/owners/8")).contains("345 Maple St.", "Mulligan", "checkup after the move");
+	}
+
+	private String render(String url) throws Exception {
+		return this.mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+	}
+
+}
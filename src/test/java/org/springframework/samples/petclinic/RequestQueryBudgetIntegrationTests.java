@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.querybudget.QueryBudget;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Statements executed by the requests of the owner, pet, visit and vet controller tests,
+ * against the database rather than mocked repositories. The caches are cleared before
+ * every request, so each budget is what its page needs when nothing is cached. The owner,
+ * pet and visit forms commit their changes, so the context, with its database, is not
+ * reused.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+class RequestQueryBudgetIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@BeforeEach
+	void clearCaches() {
+		this.cacheManager.getCacheNames().forEach((name) -> this.cacheManager.getCache(name).clear());
+	}
+
+	@Test
+	@QueryBudget
+	void initCreationForm() throws Exception {
+		this.mockMvc.perform(get("/owners/new")).andExpect(status().isOk());
+	}
+
+	@Test
+	@QueryBudget(insert = 1)
+	void processCreationForm() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/new").param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "1316761638"))
+			.andExpect(status().is3xxRedirection());
+	}
+
+	@Test
+	@QueryBudget(select = 3)
+	void processFindFormWithManyOwners() throws Exception {
+		this.mockMvc.perform(get("/owners").param("lastName", "")).andExpect(status().isOk());
+	}
+
+	@Test
+	@QueryBudget(select = 2)
+	void processFindFormWithOneOwner() throws Exception {
+		this.mockMvc.perform(get("/owners").param("lastName", "Franklin")).andExpect(status().is3xxRedirection());
+	}
+
+	@Test
+	@QueryBudget(select = 2)
+	void showOwner() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}", 1)).andExpect(status().isOk());
+	}
+
+	@Test
+	@QueryBudget(select = 1)
+	void initUpdateOwnerForm() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}/edit", 1)).andExpect(status().isOk());
+	}
+
+	@Test
+	@QueryBudget(select = 3, update = 1)
+	void processUpdateOwnerForm() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/edit", 1).param("firstName", "George")
+				.param("lastName", "Franklin")
+				.param("address", "110 W. Liberty St.")
+				.param("city", "Madison")
+				.param("telephone", "6085551024"))
+			.andExpect(status().is3xxRedirection());
+	}
+
+	@Test
+	@QueryBudget(select = 2)
+	void initPetCreationForm() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/new", 4)).andExpect(status().isOk());
+	}
+
+	@Test
+	@QueryBudget(select = 5, insert = 1, update = 1)
+	void processPetCreationForm() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/new", 4).param("name", "Betty")
+				.param("type", "hamster")
+				.param("birthDate", "2015-02-12"))
+			.andExpect(status().is3xxRedirection());
+	}
+
+	@Test
+	@QueryBudget(select = 2)
+	void initPetUpdateForm() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/edit", 1, 1)).andExpect(status().isOk());
+	}
+
+	@Test
+	@QueryBudget(select = 4, update = 1)
+	void processPetUpdateForm() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/edit", 1, 1).param("name", "Leo")
+				.param("type", "cat")
+				.param("birthDate", "2010-09-08"))
+			.andExpect(status().is3xxRedirection());
+	}
+
+	@Test
+	@QueryBudget(select = 2)
+	void initNewVisitForm() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", 1, 1)).andExpect(status().isOk());
+	}
+
+	@Test
+	@QueryBudget(select = 4, insert = 1, update = 1)
+	void processNewVisitForm() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 1, 1).param("date", "2024-03-01")
+				.param("description", "annual checkup"))
+			.andExpect(status().is3xxRedirection());
+	}
+
+	@Test
+	@QueryBudget(select = 3)
+	void showVetList() throws Exception {
+		this.mockMvc.perform(get("/vets.html")).andExpect(status().isOk());
+	}
+
+	@Test
+	@QueryBudget(select = 2)
+	void showResourcesVetList() throws Exception {
+		this.mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+	}
+
+}
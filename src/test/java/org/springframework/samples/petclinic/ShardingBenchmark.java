@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+
+/**
+ * Measures the throughput of the owner pages with the owners spread over 1, 2 and 4
+ * embedded shards. Starts the application once per topology, saves the same owners
+ * through the sharded repository and then lets concurrent clients look up owners by id,
+ * search them by last name and register new ones for a fixed time, reporting the requests
+ * per second and the 99th percentile latency of each kind of request. The shards share
+ * the CPUs of one JVM here, so the numbers show the cost of the routing and of the
+ * scatter-gather searches rather than the capacity gained with a database server per
+ * shard. Run with {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.springframework.samples.petclinic.ShardingBenchmark}. Options are
+ * {@code --owners} for the number of owners, default 2000, {@code --clients} for the
+ * number of concurrent clients, default 8, and {@code --seconds} for the measured time
+ * per topology, default 30.
+ */
+public final class ShardingBenchmark {
+
+	private static final List<String> LAST_NAMES = List.of("Adams", "Baker", "Carter", "Davies", "Evans", "Fisher",
+			"Garcia", "Hughes", "Jones", "Khan", "Lewis", "Moore", "Nolan", "Owen", "Patel", "Reed", "Smith", "Taylor",
+			"Walker", "Young");
+
+	private static final List<String> KINDS = List.of("by id", "search", "create");
+
+	private static final int WARMUP_SECONDS = 10;
+
+	private final HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+
+	private ShardingBenchmark() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int owners = 2000;
+		int clients = 8;
+		int seconds = 30;
+		for (String arg : args) {
+			if (arg.startsWith("--owners=")) {
+				owners = Integer.parseInt(arg.substring("--owners=".length()));
+			}
+			else if (arg.startsWith("--clients=")) {
+				clients = Integer.parseInt(arg.substring("--clients=".length()));
+			}
+			else if (arg.startsWith("--seconds=")) {
+				seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+			}
+			else {
+				throw new IllegalArgumentException(
+						"Expected --owners=..., --clients=... or --seconds=... but got '" + arg + "'");
+			}
+		}
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		System.out.printf("%-7s %-7s %10s %10s%n", "shards", "request", "req/s", "p99");
+		for (int shards : new int[] { 1, 2, 4 }) {
+			new ShardingBenchmark().run(shards, owners, clients, seconds);
+		}
+	}
+
+	private void run(int shards, int owners, int clients, int seconds) throws Exception {
+		StringJoiner urls = new StringJoiner(",");
+		for (int shard = 0; shard < shards; shard++) {
+			urls.add("jdbc:h2:mem:benchmark-" + shards + "-" + shard + ";DB_CLOSE_DELAY=-1");
+		}
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PetClinicApplication.class)
+			.properties("server.port=0", "petclinic.sharding.shard-urls=" + urls,
+					"spring.datasource.hikari.maximum-pool-size=" + clients, "spring.docker.compose.enabled=false",
+					"logging.level.root=WARN")
+			.run()) {
+			OwnerRepository repository = context.getBean(OwnerRepository.class);
+			SplittableRandom random = new SplittableRandom(42);
+			for (int i = 0; i < owners; i++) {
+				repository.save(owner(random));
+			}
+			String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+			load(base, owners, clients, WARMUP_SECONDS);
+			List<List<Long>> latencies = load(base, owners, clients, seconds);
+			for (int kind = 0; kind < KINDS.size(); kind++) {
+				List<Long> nanos = latencies.get(kind);
+				Collections.sort(nanos);
+				long p99 = nanos.isEmpty() ? 0 : nanos.get((int) Math.ceil(nanos.size() * 0.99) - 1);
+				System.out.printf("%-7d %-7s %10.0f %8.1fms%n", shards, KINDS.get(kind),
+						nanos.size() / (double) seconds, p99 / 1e6);
+			}
+		}
+	}
+
+	/**
+	 * Run the clients for the given time.
+	 * @return the latencies in nanoseconds, by kind of request
+	 */
+	private List<List<Long>> load(String base, int owners, int clients, int seconds) throws Exception {
+		long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		try {
+			List<Future<List<List<Long>>>> futures = new ArrayList<>();
+			for (int i = 0; i < clients; i++) {
+				SplittableRandom random = new SplittableRandom(i);
+				futures.add(executor.submit(() -> client(base, owners, random, deadline)));
+			}
+			List<List<Long>> latencies = new ArrayList<>();
+			KINDS.forEach((kind) -> latencies.add(new ArrayList<>()));
+			for (Future<List<List<Long>>> future : futures) {
+				List<List<Long>> result = future.get();
+				for (int kind = 0; kind < KINDS.size(); kind++) {
+					latencies.get(kind).addAll(result.get(kind));
+				}
+			}
+			return latencies;
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private List<List<Long>> client(String base, int owners, SplittableRandom random, long deadline) throws Exception {
+		List<List<Long>> latencies = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+		while (System.nanoTime() < deadline) {
+			int dice = random.nextInt(10);
+			int kind = (dice < 7) ? 0 : (dice < 9) ? 1 : 2;
+			HttpRequest request = switch (kind) {
+				case 0 -> get(base + "/owners/" + (1 + random.nextInt(owners)));
+				case 1 -> get(base + "/owners?lastName=" + LAST_NAMES.get(random.nextInt(LAST_NAMES.size())).charAt(0)
+						+ "&page=" + (1 + random.nextInt(3)));
+				default -> HttpRequest.newBuilder(URI.create(base + "/owners/new"))
+					.header("Content-Type", "application/x-www-form-urlencoded")
+					.POST(HttpRequest.BodyPublishers.ofString(form(owner(random))))
+					.build();
+			};
+			long start = System.nanoTime();
+			HttpResponse<Void> response = this.client.send(request, HttpResponse.BodyHandlers.discarding());
+			if (response.statusCode() >= 400) {
+				throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+			}
+			latencies.get(kind).add(System.nanoTime() - start);
+		}
+		return latencies;
+	}
+
+	private static HttpRequest get(String url) {
+		return HttpRequest.newBuilder(URI.create(url)).build();
+	}
+
+	private static Owner owner(SplittableRandom random) {
+		Owner owner = new Owner();
+		owner.setFirstName("Owner" + random.nextInt(100_000));
+		owner.setLastName(LAST_NAMES.get(random.nextInt(LAST_NAMES.size())));
+		owner.setAddress(random.nextInt(1000) + " Main St.");
+		owner.setCity("Madison");
+		owner.setTelephone(String.valueOf(6_085_550_000L + random.nextInt(10_000)));
+		return owner;
+	}
+
+	private static String form(Owner owner) {
+		return String.join("&",
+				Arrays.asList("firstName=" + owner.getFirstName(), "lastName=" + owner.getLastName(),
+						"address=" + owner.getAddress().replace(' ', '+'), "city=" + owner.getCity(),
+						"telephone=" + owner.getTelephone()));
+	}
+
+}
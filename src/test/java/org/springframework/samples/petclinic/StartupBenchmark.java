@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Measures the time to first request of the extracted application in {@code target/cds},
+ * as built by the Maven profile "cds" or the Gradle task {@code cdsArchive}: the time
+ * from the start of a new JVM until {@code /owners/1} has been rendered. Each mode is
+ * measured on fresh JVMs, alternately, so that the page cache and the CPU frequency
+ * affect them alike:
+ * <ul>
+ * <li>{@code jar}: the extracted jar, with the default CDS archive of the JDK</li>
+ * <li>{@code cds}: with the application archive written by the training run</li>
+ * <li>{@code aot}: with the bean definitions processed ahead of time</li>
+ * <li>{@code aot+cds}: with both, the archive being the one of the training run with the
+ * ahead-of-time processing, {@code application-aot.jsa}</li>
+ * </ul>
+ * Run with {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.springframework.samples.petclinic.StartupBenchmark
+ * -Dexec.args="--runs=10"} or {@code ./gradlew startupBenchmark}. Options are
+ * {@code --dir} for the directory of the extracted application and {@code --runs} for the
+ * number of starts per mode, default 5.
+ */
+public final class StartupBenchmark {
+
+	private static final Pattern STARTED = Pattern.compile("Started PetClinicApplication in ([\\d.]+) seconds");
+
+	private static final List<Mode> MODES = List.of(new Mode("jar"),
+			new Mode("cds", "-XX:SharedArchiveFile=application.jsa"), new Mode("aot", "-Dspring.aot.enabled=true"),
+			new Mode("aot+cds", "-XX:SharedArchiveFile=application-aot.jsa", "-Dspring.aot.enabled=true"));
+
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+	private StartupBenchmark() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Path directory = Path.of("target/cds");
+		int runs = 5;
+		for (String arg : args) {
+			if (arg.startsWith("--dir=")) {
+				directory = Path.of(arg.substring("--dir=".length()));
+			}
+			else if (arg.startsWith("--runs=")) {
+				runs = Integer.parseInt(arg.substring("--runs=".length()));
+			}
+			else {
+				throw new IllegalArgumentException("Expected --dir=... or --runs=... but got '" + arg + "'");
+			}
+		}
+		Path jar = findJar(directory);
+		for (String archive : List.of("application.jsa", "application-aot.jsa")) {
+			if (!Files.exists(directory.resolve(archive))) {
+				throw new IllegalStateException("No " + archive + " in " + directory + ", run the CDS training first");
+			}
+		}
+		new StartupBenchmark().run(directory, jar, runs);
+	}
+
+	private static Path findJar(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter((file) -> file.getFileName().toString().endsWith(".jar"))
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("No extracted application in " + directory));
+		}
+	}
+
+	private void run(Path directory, Path jar, int runs) throws Exception {
+		start(directory, jar, MODES.get(0));
+		for (int run = 0; run < runs; run++) {
+			for (Mode mode : MODES) {
+				mode.record(start(directory, jar, mode));
+			}
+		}
+		System.out.printf("%-8s %10s %10s %10s %14s%n", "mode", "median ms", "min ms", "max ms", "started in ms");
+		for (Mode mode : MODES) {
+			System.out.printf("%-8s %10d %10d %10d %14d%n", mode.name, mode.median(0), mode.min(), mode.max(),
+					mode.median(1));
+		}
+	}
+
+	/**
+	 * Start the application and return the time to first request and the startup time it
+	 * logged, in milliseconds.
+	 */
+	private long[] start(Path directory, Path jar, Mode mode) throws Exception {
+		int port = freePort();
+		List<String> command = new ArrayList<>(List.of("java"));
+		command.addAll(mode.options);
+		command.addAll(List.of("-jar", jar.getFileName().toString(), "--server.port=" + port));
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+		CompletableFuture<Long> started = new CompletableFuture<>();
+		CompletableFuture.runAsync(() -> readOutput(process, started));
+		try {
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/owners/1")).build();
+			while (true) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException(mode.name + " exited with " + process.exitValue());
+				}
+				try {
+					int status = this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+					if (status != 200) {
+						throw new IllegalStateException(mode.name + " returned " + status);
+					}
+					return new long[] { TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+							started.get(10, TimeUnit.SECONDS) };
+				}
+				catch (IOException ex) {
+					Thread.sleep(10);
+				}
+			}
+		}
+		finally {
+			process.destroy();
+			process.waitFor(30, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Read the output of the application, which must be drained for it not to block,
+	 * completing the given future with the startup time it logs.
+	 */
+	private static void readOutput(Process process, CompletableFuture<Long> started) {
+		try (BufferedReader output = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			for (String line = output.readLine(); line != null; line = output.readLine()) {
+				Matcher matcher = STARTED.matcher(line);
+				if (matcher.find()) {
+					started.complete(Math.round(Double.parseDouble(matcher.group(1)) * 1000));
+				}
+			}
+		}
+		catch (IOException ex) {
+			// the process was destroyed
+		}
+		started.complete(-1L);
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static final class Mode {
+
+		private final String name;
+
+		private final List<String> options;
+
+		private final List<long[]> results = new ArrayList<>();
+
+		Mode(String name, String... options) {
+			this.name = name;
+			this.options = List.of(options);
+		}
+
+		void record(long[] result) {
+			this.results.add(result);
+		}
+
+		long median(int index) {
+			long[] values = this.results.stream().mapToLong((result) -> result[index]).sorted().toArray();
+			return values[values.length / 2];
+		}
+
+		long min() {
+			return this.results.stream().mapToLong((result) -> result[0]).min().orElse(0);
+		}
+
+		long max() {
+			return this.results.stream().mapToLong((result) -> result[0]).max().orElse(0);
+		}
+
+	}
+
+}
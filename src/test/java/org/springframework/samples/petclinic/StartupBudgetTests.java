@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Fails when the application takes longer to start than the budget given by the
+ * {@code petclinic.startup.budget} system property, such as {@code 8s}. The slowest
+ * startup steps are logged once the application is ready. Meant to be run on its own by a
+ * deployment pipeline, e.g.
+ * {@code ./mvnw test -Dtest=StartupBudgetTests -Dpetclinic.startup.budget=8s}, as classes
+ * loaded by other tests in the same JVM would make the startup faster.
+ */
+@EnabledIfSystemProperty(named = "petclinic.startup.budget", matches = ".+")
+class StartupBudgetTests {
+
+	@Test
+	void testStartupIsWithinBudget() {
+		Duration budget = DurationStyle.detectAndParse(System.getProperty("petclinic.startup.budget"));
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(PetClinicApplication.STARTUP_STEPS);
+		long start = System.nanoTime();
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PetClinicApplication.class)
+			.applicationStartup(startup)
+			.properties("server.port=0", "spring.docker.compose.enabled=false")
+			.run()) {
+			Duration taken = Duration.ofNanos(System.nanoTime() - start);
+			assertThat(taken).as("Startup time, see the slowest steps logged above").isLessThanOrEqualTo(budget);
+		}
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the latency of the first minute of traffic after the readiness probe turns UP,
+ * with and without the warm-up phase. Each start runs the packaged application in a new
+ * JVM, waits for {@code /actuator/health/readiness} and then requests a few pages in a
+ * loop, reporting the mean and the 99th percentile latency of each 10 second window:
+ * without warm-up, the first windows are slow until the JIT compiler has caught up. Run
+ * with {@code ./mvnw package -DskipTests} and then {@code ./mvnw test-compile exec:java
+ * -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.springframework.samples.petclinic.WarmUpBenchmark
+ * -Dexec.args="--warm-up=30s"}. Options are {@code --warm-up} for the warm-up duration,
+ * default 30s, {@code --seconds} for the measured time after readiness, default 60, and
+ * {@code --runs} for the number of starts per mode, default 3.
+ */
+public final class WarmUpBenchmark {
+
+	private static final List<String> PAGES = List.of("/owners?lastName=", "/owners/6", "/owners/6/edit",
+			"/owners/6/pets/7/visits/new", "/vets.html?page=1", "/vets");
+
+	private static final int WINDOW_SECONDS = 10;
+
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+	private WarmUpBenchmark() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Duration warmUp = Duration.ofSeconds(30);
+		int seconds = 60;
+		int runs = 3;
+		for (String arg : args) {
+			if (arg.startsWith("--warm-up=")) {
+				warmUp = Duration.parse("PT" + arg.substring("--warm-up=".length()));
+			}
+			else if (arg.startsWith("--seconds=")) {
+				seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+			}
+			else if (arg.startsWith("--runs=")) {
+				runs = Integer.parseInt(arg.substring("--runs=".length()));
+			}
+			else {
+				throw new IllegalArgumentException(
+						"Expected --warm-up=..., --seconds=... or --runs=... but got '" + arg + "'");
+			}
+		}
+		new WarmUpBenchmark().run(findJar(Path.of("target")), warmUp, seconds, runs);
+	}
+
+	private static Path findJar(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter((file) -> file.getFileName().toString().matches("spring-petclinic-.*\\.jar"))
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("No application jar in " + directory));
+		}
+	}
+
+	private void run(Path jar, Duration warmUp, int seconds, int runs) throws Exception {
+		int windows = (seconds + WINDOW_SECONDS - 1) / WINDOW_SECONDS;
+		List<List<List<Long>>> latencies = List.of(new ArrayList<>(), new ArrayList<>());
+		long[] ready = new long[2];
+		for (int run = 0; run < runs; run++) {
+			for (int mode = 0; mode < 2; mode++) {
+				Duration duration = (mode == 0) ? Duration.ZERO : warmUp;
+				ready[mode] += start(jar, duration, seconds, windows, latencies.get(mode));
+			}
+		}
+		System.out.printf("%-16s %10s", "warm-up", "ready ms");
+		for (int window = 0; window < windows; window++) {
+			System.out.printf(" %17s", (window * WINDOW_SECONDS) + "-" + ((window + 1) * WINDOW_SECONDS) + "s");
+		}
+		System.out.printf("%n");
+		for (int mode = 0; mode < 2; mode++) {
+			System.out.printf("%-16s %10d", (mode == 0) ? "none" : warmUp.toSeconds() + "s", ready[mode] / runs);
+			for (List<Long> window : latencies.get(mode)) {
+				long[] sorted = window.stream().mapToLong(Long::longValue).sorted().toArray();
+				double mean = window.stream().mapToLong(Long::longValue).average().orElse(0);
+				long p99 = (sorted.length > 0) ? sorted[(int) (sorted.length * 0.99)] : 0;
+				System.out.printf(" %7.0f/%7dus", mean, p99);
+			}
+			System.out.printf("%n");
+		}
+		System.out.printf("latencies are mean/p99 per window after readiness%n");
+	}
+
+	/**
+	 * Start the application, request the pages for the given number of seconds once it is
+	 * ready, adding the latencies in microseconds to the given windows, and return the
+	 * time until it was ready, in milliseconds.
+	 */
+	private long start(Path jar, Duration warmUp, int seconds, int windows, List<List<Long>> latencies)
+			throws Exception {
+		while (latencies.size() < windows) {
+			latencies.add(new ArrayList<>());
+		}
+		int port = freePort();
+		Process process = new ProcessBuilder("java", "-jar", jar.toString(), "--server.port=" + port,
+				"--petclinic.warm-up.duration=" + warmUp.toMillis() + "ms",
+				"--management.endpoint.health.probes.enabled=true", "--spring.docker.compose.enabled=false",
+				"--logging.level.root=WARN")
+			.redirectErrorStream(true)
+			.start();
+		CompletableFuture.runAsync(() -> drain(process.getInputStream()));
+		try {
+			String base = "http://localhost:" + port;
+			long start = System.nanoTime();
+			awaitReadiness(process, base);
+			long ready = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			long measured = System.nanoTime();
+			long end = measured + TimeUnit.SECONDS.toNanos(seconds);
+			for (int i = 0; System.nanoTime() < end; i++) {
+				long before = System.nanoTime();
+				get(base + PAGES.get(i % PAGES.size()));
+				long after = System.nanoTime();
+				int window = (int) Math.min(TimeUnit.NANOSECONDS.toSeconds(before - measured) / WINDOW_SECONDS,
+						windows - 1);
+				latencies.get(window).add(TimeUnit.NANOSECONDS.toMicros(after - before));
+			}
+			return ready;
+		}
+		finally {
+			process.destroy();
+			process.waitFor(30, TimeUnit.SECONDS);
+		}
+	}
+
+	private void awaitReadiness(Process process, String base) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/actuator/health/readiness")).build();
+		while (true) {
+			if (!process.isAlive()) {
+				throw new IllegalStateException("The application exited with " + process.exitValue());
+			}
+			try {
+				if (this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+					return;
+				}
+			}
+			catch (IOException ex) {
+				// not listening yet
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private void get(String url) throws Exception {
+		HttpResponse<Void> response = this.client.send(HttpRequest.newBuilder(URI.create(url)).build(),
+				HttpResponse.BodyHandlers.discarding());
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException(url + " returned " + response.statusCode());
+		}
+	}
+
+	/**
+	 * Read the output of the application, which must be drained for it not to block.
+	 */
+	private static void drain(InputStream output) {
+		try (output) {
+			output.transferTo(OutputStream.nullOutputStream());
+		}
+		catch (IOException ex) {
+			// the process was destroyed
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+}
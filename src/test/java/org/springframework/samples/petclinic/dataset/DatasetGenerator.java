@@ -0,0 +1,387 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.dataset;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Writes a deterministic dataset of owners, pets, visits, vets and specialties on top of
+ * the rows already in the database. The same {@link DatasetSpec} always produces the same
+ * rows, as every value, including the primary keys, is derived from its seed and from the
+ * largest keys found before the run.
+ * <p>
+ * The number of pets of each owner follows the weights of the spec and the number of
+ * visits of each pet a Zipf distribution, so that most pets have few visits and a few
+ * have many. Rows are written with JDBC batches in foreign key order and committed after
+ * every batch, so that a large dataset does not need one large transaction, then the
+ * identity columns are moved past the generated keys and, if vets or specialties were
+ * written, the data generation is incremented. If the run fails, the rows in the ranges
+ * of generated keys are deleted before the exception is rethrown, so that the next run
+ * starts from the same rows again. On MySQL and PostgreSQL, add
+ * {@code rewriteBatchedStatements=true} or {@code reWriteBatchedInserts=true} to the URL
+ * to send each batch as multi-row inserts.
+ * <p>
+ * Tests declare the dataset they need with {@link GeneratedDataset}. To populate a
+ * database whose schema already exists, run
+ * {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.springframework.samples.petclinic.dataset.DatasetGenerator
+ * -Dexec.args="--url=jdbc:postgresql://localhost/petclinic --username=petclinic
+ * --password=petclinic --owners=1000000"} with the options of {@link DatasetSpec}.
+ */
+public class DatasetGenerator {
+
+	static final int BATCH_SIZE = 5000;
+
+	private static final String[] FIRST_NAMES = { "George", "Betty", "Eduardo", "Harold", "Peter", "Jean", "Jeff",
+			"Maria", "David", "Carlos", "Anna", "Omar", "Yuki", "Lena", "Ravi", "Chloe", "Ivan", "Fatima", "Noah",
+			"Sofia" };
+
+	private static final String[] LAST_NAMES = { "Franklin", "Davis", "Rodriquez", "McTavish", "Coleman", "Black",
+			"Escobito", "Schroeder", "Estaban", "Nguyen", "Okafor", "Kowalski", "Haddad", "Tanaka", "Moreau", "Silva",
+			"Jensen", "Novak", "Patel", "Murphy", "Fischer", "Rossi", "Larsen", "Dubois", "Costa", "Ivanova", "Walsh",
+			"Berg", "Kim", "Lopez" };
+
+	private static final String[] CITIES = { "Madison", "Sun Prairie", "McFarland", "Windsor", "Monona", "Waunakee",
+			"Verona", "Middleton" };
+
+	private static final String[] PET_NAMES = { "Leo", "Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha", "Max",
+			"Lucky", "Mulligan", "Freddy", "Sly", "Bella", "Milo", "Luna", "Oscar", "Coco", "Nala", "Rex", "Ziggy" };
+
+	private static final String[] VISITS = { "rabies shot", "neutered", "spayed", "annual checkup", "vaccination",
+			"dental cleaning", "limping", "skin rash", "ear infection", "weight check" };
+
+	private static final String[] SPECIALTIES = { "cardiology", "dermatology", "oncology", "neurology", "ophthalmology",
+			"anesthesia", "nutrition", "behavior", "emergency", "exotics" };
+
+	private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(2008, 1, 1);
+
+	private final DataSource dataSource;
+
+	public DatasetGenerator(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	public static void main(String[] args) throws SQLException {
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("=")) {
+				throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+			}
+			values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		DataSource dataSource = new DriverManagerDataSource(values.remove("url"), values.remove("username"),
+				values.remove("password"));
+		DatasetSpec spec = DatasetSpec.parse(values);
+		if (!values.isEmpty()) {
+			throw new IllegalArgumentException("Unknown options " + values.keySet());
+		}
+		System.out.println(new DatasetGenerator(dataSource).generate(spec));
+	}
+
+	/**
+	 * Write the rows of the given spec.
+	 * @param spec the dataset to write
+	 * @return the number of rows written
+	 * @throws SQLException if the rows could not be written
+	 */
+	public Summary generate(DatasetSpec spec) throws SQLException {
+		long start = System.nanoTime();
+		try (Connection connection = this.dataSource.getConnection()) {
+			Map<String, Integer> nextIds = new LinkedHashMap<>();
+			for (String table : List.of("specialties", "vets", "owners", "pets", "visits")) {
+				nextIds.put(table, nextId(connection, table));
+			}
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try (Batches batches = new Batches(connection)) {
+				SplittableRandom random = new SplittableRandom(spec.seed());
+				List<Integer> types = ids(connection, "types");
+				List<Integer> specialtyIds = ids(connection, "specialties");
+				int specialties = generateSpecialties(spec, nextIds, batches);
+				specialtyIds.addAll(range(nextIds.get("specialties"), specialties));
+				generateVets(spec, random, specialtyIds, nextIds, batches);
+				int pets = 0;
+				int visits = 0;
+				Distribution petsPerOwner = Distribution.weighted(spec.petsPerOwner());
+				Distribution visitsPerPet = Distribution.zipf(spec.maxVisits(), spec.visitExponent());
+				int ownerId = nextIds.get("owners");
+				int petId = nextIds.get("pets");
+				int visitId = nextIds.get("visits");
+				for (int o = 0; o < spec.owners(); o++, ownerId++) {
+					batches.owners.add(ownerId, pick(FIRST_NAMES, random), pick(LAST_NAMES, random),
+							(100 + random.nextInt(9900)) + " Main St.", pick(CITIES, random),
+							"608555" + (1000 + random.nextInt(9000)));
+					int firstName = random.nextInt(PET_NAMES.length);
+					for (int p = petsPerOwner.sample(random); p > 0; p--, petId++, pets++) {
+						// names are distinct within an owner, as the pet forms require
+						LocalDate birthDate = FIRST_BIRTH_DATE.plusDays(random.nextInt(5000));
+						batches.pets.add(petId, petName(firstName + p), birthDate,
+								types.get(random.nextInt(types.size())), ownerId);
+						for (int v = visitsPerPet.sample(random); v > 0; v--, visitId++, visits++) {
+							batches.visits.add(visitId, petId, birthDate.plusDays(random.nextInt(3650)),
+									pick(VISITS, random));
+						}
+					}
+				}
+				batches.flush();
+				restartIdentities(connection, Map.of("specialties", nextIds.get("specialties") + specialties, "vets",
+						nextIds.get("vets") + spec.vets(), "owners", ownerId, "pets", petId, "visits", visitId));
+				if (spec.vets() > 0 || specialties > 0) {
+					nextGeneration(connection);
+				}
+				connection.commit();
+				return new Summary(spec.owners(), pets, visits, spec.vets(), specialties,
+						Duration.ofNanos(System.nanoTime() - start));
+			}
+			catch (SQLException | RuntimeException ex) {
+				try {
+					connection.rollback();
+					deleteGenerated(connection, nextIds);
+					connection.commit();
+				}
+				catch (SQLException cleanup) {
+					ex.addSuppressed(cleanup);
+				}
+				throw ex;
+			}
+			finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		}
+	}
+
+	/**
+	 * Delete the rows of the batches committed before a failure, in reverse foreign key
+	 * order. Only the vets written by the run have rows in {@code vet_specialties}.
+	 */
+	private static void deleteGenerated(Connection connection, Map<String, Integer> firstIds) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate("DELETE FROM visits WHERE id >= " + firstIds.get("visits"));
+			statement.executeUpdate("DELETE FROM pets WHERE id >= " + firstIds.get("pets"));
+			statement.executeUpdate("DELETE FROM owners WHERE id >= " + firstIds.get("owners"));
+			statement.executeUpdate("DELETE FROM vet_specialties WHERE vet_id >= " + firstIds.get("vets"));
+			statement.executeUpdate("DELETE FROM vets WHERE id >= " + firstIds.get("vets"));
+			statement.executeUpdate("DELETE FROM specialties WHERE id >= " + firstIds.get("specialties"));
+		}
+	}
+
+	/**
+	 * Increment the data generation, so that cache snapshots taken before the new vets
+	 * and specialties are not restored, and have running instances clear their vets.
+	 */
+	private static void nextGeneration(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate("UPDATE data_generation SET generation = generation + 1 WHERE id = 1");
+			statement.executeUpdate("INSERT INTO cache_invalidations (cache_name) VALUES ('vets')");
+		}
+	}
+
+	private int generateSpecialties(DatasetSpec spec, Map<String, Integer> nextIds, Batches batches)
+			throws SQLException {
+		int id = nextIds.get("specialties");
+		for (int s = 0; s < spec.specialties(); s++) {
+			String name = SPECIALTIES[s % SPECIALTIES.length];
+			batches.specialties.add(id + s, (s < SPECIALTIES.length) ? name : name + " " + (s / SPECIALTIES.length));
+		}
+		return spec.specialties();
+	}
+
+	private void generateVets(DatasetSpec spec, SplittableRandom random, List<Integer> specialtyIds,
+			Map<String, Integer> nextIds, Batches batches) throws SQLException {
+		int id = nextIds.get("vets");
+		for (int v = 0; v < spec.vets(); v++, id++) {
+			batches.vets.add(id, pick(FIRST_NAMES, random), pick(LAST_NAMES, random));
+			if (!specialtyIds.isEmpty()) {
+				int first = random.nextInt(specialtyIds.size());
+				int count = Math.min(random.nextInt(3), specialtyIds.size());
+				for (int s = 0; s < count; s++) {
+					batches.vetSpecialties.add(id, specialtyIds.get((first + s) % specialtyIds.size()));
+				}
+			}
+		}
+	}
+
+	private static String petName(int index) {
+		String name = PET_NAMES[index % PET_NAMES.length];
+		return (index < PET_NAMES.length) ? name : name + " " + (index / PET_NAMES.length + 1);
+	}
+
+	private static String pick(String[] values, SplittableRandom random) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static List<Integer> range(int first, int count) {
+		List<Integer> values = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			values.add(first + i);
+		}
+		return values;
+	}
+
+	private static int nextId(Connection connection, String table) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery("SELECT MAX(id) FROM " + table)) {
+			result.next();
+			return result.getInt(1) + 1;
+		}
+	}
+
+	private static List<Integer> ids(Connection connection, String table) throws SQLException {
+		List<Integer> ids = new ArrayList<>();
+		try (Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery("SELECT id FROM " + table + " ORDER BY id")) {
+			while (result.next()) {
+				ids.add(result.getInt(1));
+			}
+		}
+		return ids;
+	}
+
+	private static void restartIdentities(Connection connection, Map<String, Integer> nextIds) throws SQLException {
+		boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+		try (Statement statement = connection.createStatement()) {
+			for (Map.Entry<String, Integer> entry : nextIds.entrySet()) {
+				statement.execute(mysql ? "ALTER TABLE " + entry.getKey() + " AUTO_INCREMENT = " + entry.getValue()
+						: "ALTER TABLE " + entry.getKey() + " ALTER COLUMN id RESTART WITH " + entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Number of rows written by a run.
+	 *
+	 * @param owners the number of owners
+	 * @param pets the number of pets
+	 * @param visits the number of visits
+	 * @param vets the number of vets
+	 * @param specialties the number of specialties
+	 * @param elapsed the time taken
+	 */
+	public record Summary(int owners, int pets, int visits, int vets, int specialties, Duration elapsed) {
+
+		@Override
+		public String toString() {
+			return String.format("%d owners, %d pets, %d visits, %d vets, %d specialties in %.1fs", this.owners,
+					this.pets, this.visits, this.vets, this.specialties, this.elapsed.toMillis() / 1000.0);
+		}
+
+	}
+
+	/**
+	 * Pending inserts of each table. When one is full, all are executed in foreign key
+	 * order, so that no row references a row that is still pending.
+	 */
+	private static final class Batches implements AutoCloseable {
+
+		private final Connection connection;
+
+		private final List<Batch> all = new ArrayList<>();
+
+		final Batch specialties;
+
+		final Batch vets;
+
+		final Batch vetSpecialties;
+
+		final Batch owners;
+
+		final Batch pets;
+
+		final Batch visits;
+
+		Batches(Connection connection) throws SQLException {
+			this.connection = connection;
+			this.specialties = batch("INSERT INTO specialties (id, name) VALUES (?, ?)");
+			this.vets = batch("INSERT INTO vets (id, first_name, last_name) VALUES (?, ?, ?)");
+			this.vetSpecialties = batch("INSERT INTO vet_specialties (vet_id, specialty_id) VALUES (?, ?)");
+			this.owners = batch(
+					"INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?, ?)");
+			this.pets = batch("INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)");
+			this.visits = batch("INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)");
+		}
+
+		private Batch batch(String sql) throws SQLException {
+			Batch batch = new Batch(this, this.connection.prepareStatement(sql));
+			this.all.add(batch);
+			return batch;
+		}
+
+		void flush() throws SQLException {
+			for (Batch batch : this.all) {
+				batch.execute();
+			}
+			this.connection.commit();
+		}
+
+		@Override
+		public void close() throws SQLException {
+			for (Batch batch : this.all) {
+				batch.statement.close();
+			}
+		}
+
+	}
+
+	private static final class Batch {
+
+		private final Batches batches;
+
+		private final PreparedStatement statement;
+
+		private int pending;
+
+		Batch(Batches batches, PreparedStatement statement) {
+			this.batches = batches;
+			this.statement = statement;
+		}
+
+		void add(Object... values) throws SQLException {
+			for (int i = 0; i < values.length; i++) {
+				this.statement.setObject(i + 1, values[i]);
+			}
+			this.statement.addBatch();
+			if (++this.pending == BATCH_SIZE) {
+				this.batches.flush();
+			}
+		}
+
+		void execute() throws SQLException {
+			if (this.pending > 0) {
+				this.statement.executeBatch();
+				this.pending = 0;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.dataset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.samples.petclinic.dataset.DatasetGenerator.Summary;
+
+/**
+ * Test class for {@link DatasetGenerator} and {@link DatasetSpec}.
+ */
+class DatasetGeneratorTests {
+
+	private final EmbeddedDatabase database = database();
+
+	private final JdbcTemplate jdbc = new JdbcTemplate(this.database);
+
+	@AfterEach
+	void shutdown() {
+		this.database.shutdown();
+	}
+
+	@Test
+	void shouldAddGeneratedRowsToExistingOnes() throws Exception {
+		Summary summary = new DatasetGenerator(this.database)
+			.generate(DatasetSpec.parse("--owners=2000", "--vets=20", "--specialties=12"));
+
+		assertThat(count("owners")).isEqualTo(10 + 2000);
+		assertThat(count("pets")).isEqualTo(13 + summary.pets());
+		assertThat(count("visits")).isEqualTo(4 + summary.visits());
+		assertThat(count("vets")).isEqualTo(6 + 20);
+		assertThat(count("specialties")).isEqualTo(3 + 12);
+		assertThat(this.jdbc.queryForList("SELECT name FROM specialties WHERE id > 3", String.class))
+			.contains("cardiology", "cardiology 1")
+			.doesNotHaveDuplicates();
+		assertThat(this.jdbc.queryForObject("SELECT generation FROM data_generation", Long.class)).isEqualTo(2);
+		assertThat(this.jdbc.queryForObject("SELECT COUNT(*) FROM pets p JOIN pets q "
+				+ "ON p.owner_id = q.owner_id AND p.name = q.name AND p.id < q.id", Integer.class))
+			.isZero();
+	}
+
+	@Test
+	void shouldGenerateTheSameRowsForTheSameSpec() throws Exception {
+		DatasetSpec spec = DatasetSpec.parse("--owners=500", "--vets=5", "--seed=7");
+		new DatasetGenerator(this.database).generate(spec);
+		EmbeddedDatabase other = database();
+		try {
+			new DatasetGenerator(other).generate(spec);
+			for (String table : List.of("owners", "pets", "visits", "vets", "vet_specialties")) {
+				assertThat(new JdbcTemplate(other).queryForList("SELECT * FROM " + table + " ORDER BY 1, 2"))
+					.isEqualTo(this.jdbc.queryForList("SELECT * FROM " + table + " ORDER BY 1, 2"));
+			}
+		}
+		finally {
+			other.shutdown();
+		}
+	}
+
+	@Test
+	void shouldFollowTheVisitDistribution() throws Exception {
+		Summary summary = new DatasetGenerator(this.database)
+			.generate(DatasetSpec.parse("--owners=5000", "--pets-per-owner=1:1", "--max-visits=20"));
+
+		assertThat(summary.pets()).isEqualTo(5000);
+		List<Integer> visitsPerPet = this.jdbc.queryForList(
+				"SELECT COUNT(v.id) FROM pets p LEFT JOIN visits v ON v.pet_id = p.id WHERE p.id > 13 GROUP BY p.id",
+				Integer.class);
+		Map<Integer, Long> pets = visitsPerPet.stream()
+			.collect(Collectors.groupingBy((visits) -> visits, Collectors.counting()));
+		assertThat(pets.get(0)).isGreaterThan(pets.get(1));
+		assertThat(pets.get(1)).isGreaterThan(pets.get(2));
+		assertThat(pets.get(2)).isGreaterThan(pets.get(5));
+		assertThat(visitsPerPet).allMatch((visits) -> visits <= 20);
+		double mean = Distribution.zipf(20, 1.5).mean();
+		assertThat(summary.visits() / 5000.0).isBetween(mean * 0.9, mean * 1.1);
+	}
+
+	@Test
+	void shouldRestartIdentitiesAfterGeneratedKeys() throws Exception {
+		new DatasetGenerator(this.database).generate(DatasetSpec.ofOwners(100));
+
+		this.jdbc.update("INSERT INTO owners (first_name, last_name, address, city, telephone) "
+				+ "VALUES ('Jane', 'Doe', '1 Main St.', 'Madison', '6085550000')");
+		assertThat(this.jdbc.queryForObject("SELECT id FROM owners WHERE last_name = 'Doe'", Integer.class))
+			.isEqualTo(111);
+	}
+
+	@Test
+	void shouldDeleteCommittedBatchesOfAFailedRun() throws Exception {
+		// the first batch of owners is committed, the second one fails
+		this.jdbc.execute("ALTER TABLE owners ADD CONSTRAINT few_owners CHECK (id <= 6000)");
+		DatasetSpec spec = DatasetSpec.parse("--owners=8000", "--pets-per-owner=0:1", "--vets=5");
+		assertThatExceptionOfType(SQLException.class)
+			.isThrownBy(() -> new DatasetGenerator(this.database).generate(spec));
+
+		assertThat(count("owners")).isEqualTo(10);
+		assertThat(count("vets")).isEqualTo(6);
+		assertThat(count("vet_specialties")).isEqualTo(5);
+		assertThat(this.jdbc.queryForObject("SELECT generation FROM data_generation", Long.class)).isEqualTo(1);
+	}
+
+	@Test
+	void shouldRejectInvalidSpecs() {
+		assertThatIllegalArgumentException().isThrownBy(() -> DatasetSpec.parse("--size=1"));
+		assertThatIllegalArgumentException().isThrownBy(() -> DatasetSpec.parse("--owners=-1"));
+		assertThatIllegalArgumentException().isThrownBy(() -> DatasetSpec.parse("--pets-per-owner=1:0"));
+		assertThatIllegalArgumentException().isThrownBy(() -> DatasetSpec.parse("--pets-per-owner=2"));
+	}
+
+	private int count(String table) {
+		return this.jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+
+	private static EmbeddedDatabase database() {
+		return new EmbeddedDatabaseBuilder().generateUniqueName(true)
+			.setType(EmbeddedDatabaseType.H2)
+			.addScripts("db/h2/schema.sql", "db/h2/data.sql")
+			.build();
+	}
+
+}
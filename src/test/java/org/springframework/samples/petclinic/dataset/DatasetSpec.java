@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.dataset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shape of a dataset written by the {@link DatasetGenerator}. Two specs that are equal
+ * describe the same rows, whatever the database. Parsed from {@code --name=value}
+ * arguments:
+ * <ul>
+ * <li>{@code owners}: number of owners, default 1000</li>
+ * <li>{@code pets-per-owner}: relative weight of each number of pets, as
+ * {@code count:weight} pairs, default {@code 0:10,1:50,2:25,3:10,4:5}</li>
+ * <li>{@code visit-exponent}: exponent of the Zipf distribution of the number of visits
+ * per pet, default 1.5</li>
+ * <li>{@code max-visits}: largest number of visits of a pet, default 50</li>
+ * <li>{@code vets}: number of vets, default 0</li>
+ * <li>{@code specialties}: number of specialties, default 0</li>
+ * <li>{@code seed}: seed of the generated values, default 42</li>
+ * </ul>
+ *
+ * @param owners the number of owners
+ * @param petsPerOwner the relative weight of owning 0, 1, 2... pets
+ * @param visitExponent the exponent of the Zipf distribution of visits per pet
+ * @param maxVisits the largest number of visits of a pet
+ * @param vets the number of vets
+ * @param specialties the number of specialties
+ * @param seed the seed of the generated values
+ */
+public record DatasetSpec(int owners, List<Integer> petsPerOwner, double visitExponent, int maxVisits, int vets,
+		int specialties, long seed) {
+
+	static final String DEFAULT_PETS_PER_OWNER = "0:10,1:50,2:25,3:10,4:5";
+
+	private static final List<String> NAMES = List.of("owners", "pets-per-owner", "visit-exponent", "max-visits",
+			"vets", "specialties", "seed");
+
+	public DatasetSpec {
+		if (owners < 0 || maxVisits < 0 || vets < 0 || specialties < 0) {
+			throw new IllegalArgumentException("Dataset sizes must not be negative");
+		}
+		if (visitExponent <= 0) {
+			throw new IllegalArgumentException("The visit exponent must be positive");
+		}
+		if (petsPerOwner.isEmpty() || petsPerOwner.stream().anyMatch((weight) -> weight < 0)
+				|| petsPerOwner.stream().mapToInt(Integer::intValue).sum() == 0) {
+			throw new IllegalArgumentException("Invalid pets per owner weights " + petsPerOwner);
+		}
+		petsPerOwner = List.copyOf(petsPerOwner);
+	}
+
+	/**
+	 * Return the default spec with the given number of owners.
+	 * @param owners the number of owners
+	 * @return the spec
+	 */
+	public static DatasetSpec ofOwners(int owners) {
+		return parse("--owners=" + owners);
+	}
+
+	/**
+	 * Parse a spec from {@code --name=value} arguments.
+	 * @param args the arguments
+	 * @return the spec
+	 */
+	public static DatasetSpec parse(String... args) {
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("=")) {
+				throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+			}
+			values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		DatasetSpec spec = parse(values);
+		if (!values.isEmpty()) {
+			throw new IllegalArgumentException("Unknown options " + values.keySet());
+		}
+		return spec;
+	}
+
+	/**
+	 * Parse a spec from option values, removing the options of the spec from the map so
+	 * that the caller can check the remaining ones.
+	 * @param values the option values by name
+	 * @return the spec
+	 */
+	public static DatasetSpec parse(Map<String, String> values) {
+		DatasetSpec spec = new DatasetSpec(Integer.parseInt(values.getOrDefault("owners", "1000")),
+				parseWeights(values.getOrDefault("pets-per-owner", DEFAULT_PETS_PER_OWNER)),
+				Double.parseDouble(values.getOrDefault("visit-exponent", "1.5")),
+				Integer.parseInt(values.getOrDefault("max-visits", "50")),
+				Integer.parseInt(values.getOrDefault("vets", "0")),
+				Integer.parseInt(values.getOrDefault("specialties", "0")),
+				Long.parseLong(values.getOrDefault("seed", "42")));
+		values.keySet().removeAll(NAMES);
+		return spec;
+	}
+
+	static DatasetSpec from(GeneratedDataset annotation) {
+		return new DatasetSpec(annotation.owners(), parseWeights(annotation.petsPerOwner()), annotation.visitExponent(),
+				annotation.maxVisits(), annotation.vets(), annotation.specialties(), annotation.seed());
+	}
+
+	static List<Integer> parseWeights(String weights) {
+		List<Integer> result = new ArrayList<>();
+		for (String entry : weights.split(",")) {
+			String[] countAndWeight = entry.trim().split(":");
+			if (countAndWeight.length != 2) {
+				throw new IllegalArgumentException("Expected count:weight but got '" + entry + "'");
+			}
+			int count = Integer.parseInt(countAndWeight[0]);
+			if (count < 0) {
+				throw new IllegalArgumentException("Negative number of pets in '" + entry + "'");
+			}
+			while (result.size() <= count) {
+				result.add(0);
+			}
+			result.set(count, Integer.parseInt(countAndWeight[1]));
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.dataset;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Discrete distribution over {@code 0..n}, sampled by binary search of its cumulative
+ * probabilities.
+ */
+final class Distribution {
+
+	private final double[] cumulative;
+
+	private Distribution(double[] weights) {
+		this.cumulative = new double[weights.length];
+		double total = Arrays.stream(weights).sum();
+		double sum = 0;
+		for (int i = 0; i < weights.length; i++) {
+			sum += weights[i];
+			this.cumulative[i] = sum / total;
+		}
+		this.cumulative[weights.length - 1] = 1.0;
+	}
+
+	/**
+	 * Distribution proportional to the given weights.
+	 * @param weights the relative weight of each value
+	 * @return the distribution
+	 */
+	static Distribution weighted(List<Integer> weights) {
+		return new Distribution(weights.stream().mapToDouble(Integer::doubleValue).toArray());
+	}
+
+	/**
+	 * Zipf distribution over {@code 0..max}, where {@code k} has a probability
+	 * proportional to {@code 1 / (k + 1)^exponent}: most values are small, a few are
+	 * close to {@code max}.
+	 * @param max the largest value
+	 * @param exponent the exponent, larger values make the tail thinner
+	 * @return the distribution
+	 */
+	static Distribution zipf(int max, double exponent) {
+		double[] weights = new double[max + 1];
+		for (int k = 0; k <= max; k++) {
+			weights[k] = 1 / Math.pow(k + 1, exponent);
+		}
+		return new Distribution(weights);
+	}
+
+	int sample(SplittableRandom random) {
+		int index = Arrays.binarySearch(this.cumulative, random.nextDouble());
+		return (index >= 0) ? index + 1 : -index - 1;
+	}
+
+	double mean() {
+		double mean = 0;
+		double previous = 0;
+		for (int k = 0; k < this.cumulative.length; k++) {
+			mean += k * (this.cumulative[k] - previous);
+			previous = this.cumulative[k];
+		}
+		return mean;
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.dataset;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.test.context.ContextCustomizerFactories;
+
+/**
+ * Populates the database of a Spring test context with the {@link DatasetGenerator}
+ * before the first test runs. The dataset is part of the context cache key, so test
+ * classes declaring the same dataset share one context, and classes without it never see
+ * the generated rows.
+ *
+ * @see DatasetSpec
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@ContextCustomizerFactories(GeneratedDatasetContextCustomizerFactory.class)
+public @interface GeneratedDataset {
+
+	/**
+	 * The number of owners.
+	 * @return the number of owners
+	 */
+	int owners();
+
+	/**
+	 * The relative weight of each number of pets, as {@code count:weight} pairs.
+	 * @return the weights
+	 */
+	String petsPerOwner() default DatasetSpec.DEFAULT_PETS_PER_OWNER;
+
+	/**
+	 * The exponent of the Zipf distribution of the number of visits per pet.
+	 * @return the exponent
+	 */
+	double visitExponent() default 1.5;
+
+	/**
+	 * The largest number of visits of a pet.
+	 * @return the largest number of visits
+	 */
+	int maxVisits() default 50;
+
+	/**
+	 * The number of vets.
+	 * @return the number of vets
+	 */
+	int vets() default 0;
+
+	/**
+	 * The number of specialties.
+	 * @return the number of specialties
+	 */
+	int specialties() default 0;
+
+	/**
+	 * The seed of the generated values.
+	 * @return the seed
+	 */
+	long seed() default 42;
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.dataset;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+import org.springframework.test.context.MergedContextConfiguration;
+import org.springframework.test.context.TestContextAnnotationUtils;
+
+/**
+ * {@link ContextCustomizerFactory} for {@link GeneratedDataset}. Registers a bean that
+ * generates the dataset once all singletons, including the database initializers, are
+ * ready.
+ */
+class GeneratedDatasetContextCustomizerFactory implements ContextCustomizerFactory {
+
+	@Override
+	public ContextCustomizer createContextCustomizer(Class<?> testClass,
+			List<ContextConfigurationAttributes> configAttributes) {
+		GeneratedDataset dataset = TestContextAnnotationUtils.findMergedAnnotation(testClass, GeneratedDataset.class);
+		return (dataset != null) ? new GeneratedDatasetContextCustomizer(DatasetSpec.from(dataset)) : null;
+	}
+
+	private record GeneratedDatasetContextCustomizer(DatasetSpec spec) implements ContextCustomizer {
+
+		@Override
+		public void customizeContext(ConfigurableApplicationContext context, MergedContextConfiguration config) {
+			BeanFactory beanFactory = context.getBeanFactory();
+			((BeanDefinitionRegistry) beanFactory).registerBeanDefinition(DatasetLoader.class.getName(),
+					new RootBeanDefinition(DatasetLoader.class, () -> new DatasetLoader(beanFactory, this.spec)));
+		}
+
+	}
+
+	private static final class DatasetLoader implements SmartInitializingSingleton {
+
+		private final BeanFactory beanFactory;
+
+		private final DatasetSpec spec;
+
+		DatasetLoader(BeanFactory beanFactory, DatasetSpec spec) {
+			this.beanFactory = beanFactory;
+			this.spec = spec;
+		}
+
+		@Override
+		public void afterSingletonsInstantiated() {
+			try {
+				new DatasetGenerator(this.beanFactory.getBean(DataSource.class)).generate(this.spec);
+			}
+			catch (SQLException ex) {
+				throw new IllegalStateException("Could not generate " + this.spec, ex);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.dataset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration test for a context populated with {@link GeneratedDataset}.
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+@GeneratedDataset(owners = 3000, vets = 40, specialties = 5)
+class GeneratedDatasetIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private VetRepository vets;
+
+	@Test
+	void testDatasetIsGeneratedBeforeTheFirstTest() {
+		assertThat(this.owners.findAll(PageRequest.of(0, 5)).getTotalElements()).isEqualTo(3010);
+		assertThat(this.vets.findAll()).hasSize(46);
+	}
+
+	@Test
+	void testGeneratedOwnersAreRendered() throws Exception {
+		this.mockMvc.perform(get("/owners/3010")).andExpect(status().isOk());
+		this.mockMvc.perform(get("/owners").param("lastName", "").param("page", "600")).andExpect(status().isOk());
+	}
+
+}
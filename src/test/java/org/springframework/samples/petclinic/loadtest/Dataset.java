@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.loadtest;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.dataset.DatasetGenerator;
+import org.springframework.samples.petclinic.dataset.DatasetSpec;
+
+/**
+ * Owners and pets the {@link LoadTestHarness} draws its requests from, written by the
+ * {@link DatasetGenerator}. The data is derived from a seed, so two runs with the same
+ * options replay the same requests against the same rows.
+ */
+final class Dataset {
+
+	private final List<SeededOwner> owners;
+
+	private Dataset(List<SeededOwner> owners) {
+		this.owners = owners;
+	}
+
+	List<SeededOwner> owners() {
+		return this.owners;
+	}
+
+	/**
+	 * Generate the given dataset and read back all owners and pets of the database.
+	 * @param dataSource the database to write to
+	 * @param spec the dataset to generate
+	 * @return the owners and pets in the database
+	 */
+	static Dataset generate(DataSource dataSource, DatasetSpec spec) {
+		try {
+			System.out.println(new DatasetGenerator(dataSource).generate(spec));
+		}
+		catch (SQLException ex) {
+			throw new IllegalStateException("Could not generate " + spec, ex);
+		}
+		return read(new JdbcTemplate(dataSource));
+	}
+
+	private static Dataset read(JdbcTemplate jdbc) {
+		Map<Integer, SeededOwner> owners = new HashMap<>();
+		List<SeededOwner> ordered = new ArrayList<>();
+		jdbc.query("SELECT id, last_name FROM owners ORDER BY id", (rs) -> {
+			SeededOwner owner = new SeededOwner(rs.getInt(1), rs.getString(2), new ArrayList<>());
+			owners.put(owner.id(), owner);
+			ordered.add(owner);
+		});
+		jdbc.query("SELECT p.id, p.name, t.name, p.birth_date, p.owner_id FROM pets p JOIN types t ON p.type_id = t.id "
+				+ "ORDER BY p.id", (rs) -> {
+					SeededOwner owner = owners.get(rs.getInt(5));
+					if (owner != null) {
+						owner.pets()
+							.add(new SeededPet(rs.getInt(1), rs.getString(2), rs.getString(3),
+									rs.getDate(4).toLocalDate()));
+					}
+				});
+		return new Dataset(ordered);
+	}
+
+	record SeededOwner(int id, String lastName, List<SeededPet> pets) {
+	}
+
+	record SeededPet(int id, String name, String type, LocalDate birthDate) {
+	}
+
+}
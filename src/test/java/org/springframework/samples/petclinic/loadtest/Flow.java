@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.loadtest;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.samples.petclinic.loadtest.Dataset.SeededOwner;
+import org.springframework.samples.petclinic.loadtest.Dataset.SeededPet;
+
+/**
+ * User flows replayed by the {@link LoadTestHarness}. A flow is a sequence of requests,
+ * each reported under its own endpoint; flows that need a pet fall back to the owner
+ * details when the drawn owner has none.
+ */
+enum Flow {
+
+	/**
+	 * Search owners by a last name prefix of one to three letters.
+	 */
+	SEARCH("search"),
+
+	/**
+	 * Show the details of an owner.
+	 */
+	DETAILS("details"),
+
+	/**
+	 * Open the edit form of a pet and submit it unchanged.
+	 */
+	EDIT_PET("edit-pet"),
+
+	/**
+	 * Open the visit form of a pet and book a visit.
+	 */
+	BOOK_VISIT("book-visit");
+
+	private final String name;
+
+	Flow(String name) {
+		this.name = name;
+	}
+
+	String getName() {
+		return this.name;
+	}
+
+	static Flow forName(String name) {
+		for (Flow flow : values()) {
+			if (flow.name.equals(name)) {
+				return flow;
+			}
+		}
+		throw new IllegalArgumentException("Unknown flow '" + name + "'");
+	}
+
+	List<Step> steps(SeededOwner owner, Random random) {
+		String ownerPath = "/owners/" + owner.id();
+		if (this == SEARCH) {
+			String lastName = owner.lastName();
+			String prefix = lastName.substring(0, Math.min(lastName.length(), 1 + random.nextInt(3)));
+			return List.of(Step.get("GET /owners?lastName=", "/owners?lastName=" + prefix));
+		}
+		if (this == DETAILS || owner.pets().isEmpty()) {
+			return List.of(Step.get("GET /owners/{id}", ownerPath));
+		}
+		SeededPet pet = owner.pets().get(random.nextInt(owner.pets().size()));
+		String petPath = ownerPath + "/pets/" + pet.id();
+		if (this == EDIT_PET) {
+			return List.of(Step.get("GET /owners/{id}/pets/{id}/edit", petPath + "/edit"), Step.post(
+					"POST /owners/{id}/pets/{id}/edit", petPath + "/edit",
+					"name=" + encode(pet.name()) + "&type=" + encode(pet.type()) + "&birthDate=" + pet.birthDate()));
+		}
+		LocalDate date = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365));
+		return List.of(Step.get("GET /owners/{id}/pets/{id}/visits/new", petPath + "/visits/new"),
+				Step.post("POST /owners/{id}/pets/{id}/visits/new", petPath + "/visits/new",
+						"date=" + date + "&description=load+test"),
+				Step.get("GET /owners/{id}", ownerPath));
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * One request of a flow.
+	 *
+	 * @param endpoint the name the latency is reported under
+	 * @param method the HTTP method
+	 * @param path the path and query of the request
+	 * @param form the url-encoded form to post, or {@code null}
+	 */
+	record Step(String endpoint, String method, String path, String form) {
+
+		static Step get(String endpoint, String path) {
+			return new Step(endpoint, "GET", path, null);
+		}
+
+		static Step post(String endpoint, String path, String form) {
+			return new Step(endpoint, "POST", path, form);
+		}
+
+	}
+
+}
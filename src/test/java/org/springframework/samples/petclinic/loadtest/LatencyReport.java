@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.loadtest;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histograms and error counts per endpoint. Latencies are recorded in
+ * microseconds, from one microsecond up to one minute with three significant digits.
+ */
+class LatencyReport {
+
+	private static final long HIGHEST_TRACKABLE = TimeUnit.MINUTES.toMicros(1);
+
+	private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+	private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+	private final LongAdder dropped = new LongAdder();
+
+	void record(String endpoint, long latencyNanos, boolean success) {
+		long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(latencyNanos), 1), HIGHEST_TRACKABLE);
+		this.histograms.computeIfAbsent(endpoint, (key) -> new ConcurrentHistogram(HIGHEST_TRACKABLE, 3))
+			.recordValue(micros);
+		if (!success) {
+			this.errors.computeIfAbsent(endpoint, (key) -> new LongAdder()).increment();
+		}
+	}
+
+	void dropped() {
+		this.dropped.increment();
+	}
+
+	void reset() {
+		this.histograms.values().forEach(Histogram::reset);
+		this.errors.values().forEach(LongAdder::reset);
+		this.dropped.reset();
+	}
+
+	void print(PrintStream out, double seconds) {
+		out.printf("%-40s %8s %8s %7s %10s %10s %10s %10s%n", "endpoint", "count", "req/s", "errors", "p50 ms",
+				"p99 ms", "p99.9 ms", "max ms");
+		for (Map.Entry<String, Histogram> entry : new TreeMap<>(this.histograms).entrySet()) {
+			Histogram histogram = entry.getValue();
+			LongAdder errors = this.errors.get(entry.getKey());
+			out.printf("%-40s %8d %8.1f %7d %10.2f %10.2f %10.2f %10.2f%n", entry.getKey(), histogram.getTotalCount(),
+					histogram.getTotalCount() / seconds, (errors != null) ? errors.sum() : 0,
+					millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+					millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+		}
+		out.printf("dropped arrivals: %d%n", this.dropped.sum());
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.loadtest.Dataset.SeededOwner;
+import org.springframework.samples.petclinic.loadtest.Flow.Step;
+
+/**
+ * Open-model load generator. Boots the application on H2 with a generated
+ * {@link Dataset}, then starts {@link Flow flows} at Poisson distributed arrival times,
+ * whether or not earlier flows have completed, and reports the latency of each endpoint.
+ * Latencies are measured from the scheduled arrival of a flow, so a server that falls
+ * behind shows up in the percentiles instead of slowing the load down.
+ * <p>
+ * The generator runs in the same JVM as the application, so the absolute numbers include
+ * its own overhead; use them to compare builds and configurations on the same machine.
+ * Run with {@code ./mvnw test-compile exec:java -P loadtest -Dloadtest.args="--rate=200"}
+ * or {@code ./gradlew loadTest --args="--rate=200"}, see {@link LoadTestOptions} for the
+ * options.
+ */
+public final class LoadTestHarness {
+
+	private final LoadTestOptions options;
+
+	private final HttpClient client = HttpClient.newBuilder()
+		.followRedirects(HttpClient.Redirect.NEVER)
+		.connectTimeout(Duration.ofSeconds(5))
+		.build();
+
+	private final LatencyReport report = new LatencyReport();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private LoadTestHarness(LoadTestOptions options) {
+		this.options = options;
+	}
+
+	public static void main(String[] args) {
+		LoadTestOptions options = LoadTestOptions.parse(args);
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PetClinicApplication.class)
+			.properties("server.port=0", "database=h2", "spring.docker.compose.enabled=false",
+					"logging.level.root=WARN", "logging.level.org.springframework=WARN")
+			.run()) {
+			Dataset dataset = Dataset.generate(context.getBean(DataSource.class), options.dataset());
+			URI base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+			new LoadTestHarness(options).run(base, dataset);
+		}
+	}
+
+	private void run(URI base, Dataset dataset) {
+		Random random = new Random(this.options.seed());
+		System.out.printf("%d owners, %.1f flows/s, mix %s%n", dataset.owners().size(), this.options.rate(),
+				this.options.mix());
+		generate(base, dataset, random, this.options.warmup());
+		this.report.reset();
+		generate(base, dataset, random, this.options.duration());
+		long drainUntil = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+		while (this.inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+			LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+		}
+		this.report.print(System.out, this.options.duration().toMillis() / 1000.0);
+	}
+
+	private void generate(URI base, Dataset dataset, Random random, Duration duration) {
+		double meanIntervalNanos = 1_000_000_000 / this.options.rate();
+		long start = System.nanoTime();
+		long end = start + duration.toNanos();
+		long next = start;
+		while (next < end) {
+			long delay = next - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(delay);
+			}
+			Flow flow = pick(this.options.mix(), random);
+			SeededOwner owner = dataset.owners().get(random.nextInt(dataset.owners().size()));
+			start(base, flow.steps(owner, random), next);
+			next += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+		}
+	}
+
+	private void start(URI base, List<Step> steps, long scheduledNanos) {
+		if (this.inFlight.incrementAndGet() > this.options.maxInFlight()) {
+			this.inFlight.decrementAndGet();
+			this.report.dropped();
+			return;
+		}
+		CompletableFuture<Void> flow = CompletableFuture.completedFuture(null);
+		long stepStart = scheduledNanos;
+		for (int i = 0; i < steps.size(); i++) {
+			Step step = steps.get(i);
+			// the first request is late by as much as the generator is, the later ones
+			// start when the previous one completed
+			boolean first = (i == 0);
+			flow = flow.thenCompose((ignored) -> send(base, step, first ? stepStart : System.nanoTime()));
+		}
+		flow.whenComplete((ignored, ex) -> this.inFlight.decrementAndGet());
+	}
+
+	private CompletableFuture<Void> send(URI base, Step step, long startNanos) {
+		HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve(step.path())).timeout(Duration.ofSeconds(30));
+		if (step.form() != null) {
+			request.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(step.form()));
+		}
+		return this.client.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding()).handle((response, ex) -> {
+			boolean success = ex == null && response.statusCode() < 400;
+			this.report.record(step.endpoint(), System.nanoTime() - startNanos, success);
+			return null;
+		});
+	}
+
+	private static Flow pick(Map<Flow, Integer> mix, Random random) {
+		int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+		int ticket = random.nextInt(total);
+		for (Map.Entry<Flow, Integer> entry : mix.entrySet()) {
+			ticket -= entry.getValue();
+			if (ticket < 0) {
+				return entry.getKey();
+			}
+		}
+		throw new IllegalStateException("Empty mix");
+	}
+
+}
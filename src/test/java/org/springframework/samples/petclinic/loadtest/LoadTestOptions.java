@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.samples.petclinic.dataset.DatasetSpec;
+
+/**
+ * Options of the {@link LoadTestHarness}, parsed from {@code --name=value} arguments:
+ * <ul>
+ * <li>{@code rate}: flows started per second, default 50</li>
+ * <li>{@code duration}: length of the measured run, default 60s</li>
+ * <li>{@code warmup}: length of the unmeasured run before, default 15s</li>
+ * <li>{@code mix}: relative weight of each {@link Flow}, default
+ * {@code search:30,details:40,edit-pet:15,book-visit:15}</li>
+ * <li>{@code max-in-flight}: flows in progress beyond which new arrivals are dropped,
+ * default 5000</li>
+ * <li>{@code seed}: seed of the dataset and of the arrivals, default 42</li>
+ * </ul>
+ * The other options describe the generated dataset, see {@link DatasetSpec}.
+ */
+record LoadTestOptions(double rate, Duration duration, Duration warmup, Map<Flow, Integer> mix, int maxInFlight,
+		long seed, DatasetSpec dataset) {
+
+	static final String DEFAULT_MIX = "search:30,details:40,edit-pet:15,book-visit:15";
+
+	static LoadTestOptions parse(String... args) {
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("=")) {
+				throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+			}
+			values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+		LoadTestOptions options = new LoadTestOptions(Double.parseDouble(values.getOrDefault("rate", "50")),
+				DurationStyle.detectAndParse(values.getOrDefault("duration", "60s")),
+				DurationStyle.detectAndParse(values.getOrDefault("warmup", "15s")),
+				parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+				Integer.parseInt(values.getOrDefault("max-in-flight", "5000")),
+				Long.parseLong(values.getOrDefault("seed", "42")), DatasetSpec.parse(values));
+		values.keySet().removeAll(Set.of("rate", "duration", "warmup", "mix", "max-in-flight"));
+		if (!values.isEmpty()) {
+			throw new IllegalArgumentException("Unknown options " + values.keySet());
+		}
+		return options;
+	}
+
+	static Map<Flow, Integer> parseMix(String mix) {
+		Map<Flow, Integer> weights = new EnumMap<>(Flow.class);
+		for (String entry : mix.split(",")) {
+			String[] nameAndWeight = entry.trim().split(":");
+			if (nameAndWeight.length != 2) {
+				throw new IllegalArgumentException("Expected flow:weight but got '" + entry + "'");
+			}
+			int weight = Integer.parseInt(nameAndWeight[1]);
+			if (weight < 0) {
+				throw new IllegalArgumentException("Negative weight for " + nameAndWeight[0]);
+			}
+			weights.put(Flow.forName(nameAndWeight[0]), weight);
+		}
+		if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+			throw new IllegalArgumentException("The mix '" + mix + "' does not start any flow");
+		}
+		return weights;
+	}
+
+}
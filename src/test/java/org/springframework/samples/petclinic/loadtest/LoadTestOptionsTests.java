@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.loadtest.Dataset.SeededOwner;
+import org.springframework.samples.petclinic.loadtest.Dataset.SeededPet;
+
+/**
+ * Test class for {@link LoadTestOptions} and the requests of each {@link Flow}.
+ */
+class LoadTestOptionsTests {
+
+	@Test
+	void shouldUseDefaults() {
+		LoadTestOptions options = LoadTestOptions.parse();
+		assertThat(options.rate()).isEqualTo(50);
+		assertThat(options.duration()).isEqualTo(Duration.ofSeconds(60));
+		assertThat(options.mix()).containsEntry(Flow.DETAILS, 40).containsEntry(Flow.BOOK_VISIT, 15);
+	}
+
+	@Test
+	void shouldParseOptions() {
+		LoadTestOptions options = LoadTestOptions.parse("--rate=250.5", "--duration=2m", "--owners=10000",
+				"--mix=search:1,details:0", "--seed=7");
+		assertThat(options.rate()).isEqualTo(250.5);
+		assertThat(options.duration()).isEqualTo(Duration.ofMinutes(2));
+		assertThat(options.dataset().owners()).isEqualTo(10000);
+		assertThat(options.dataset().seed()).isEqualTo(options.seed()).isEqualTo(7);
+		assertThat(options.mix()).containsOnlyKeys(Flow.SEARCH, Flow.DETAILS);
+	}
+
+	@Test
+	void shouldRejectInvalidOptions() {
+		assertThatIllegalArgumentException().isThrownBy(() -> LoadTestOptions.parse("--speed=1"));
+		assertThatIllegalArgumentException().isThrownBy(() -> LoadTestOptions.parse("--mix=browse:1"));
+		assertThatIllegalArgumentException().isThrownBy(() -> LoadTestOptions.parse("--mix=search:0"));
+	}
+
+	@Test
+	void shouldBuildFlowRequests() {
+		SeededPet pet = new SeededPet(7, "Mr Whiskers", "cat", LocalDate.of(2012, 9, 4));
+		SeededOwner owner = new SeededOwner(6, "Coleman", List.of(pet));
+		Random random = new Random(1);
+
+		assertThat(Flow.SEARCH.steps(owner, random).get(0).path()).matches("/owners\\?lastName=C(o|ol)?");
+		assertThat(Flow.EDIT_PET.steps(owner, random)).extracting(Flow.Step::method).containsExactly("GET", "POST");
+		assertThat(Flow.EDIT_PET.steps(owner, random).get(1).form())
+			.isEqualTo("name=Mr+Whiskers&type=cat&birthDate=2012-09-04");
+		assertThat(Flow.BOOK_VISIT.steps(owner, random)).extracting(Flow.Step::path)
+			.containsExactly("/owners/6/pets/7/visits/new", "/owners/6/pets/7/visits/new", "/owners/6");
+		assertThat(Flow.BOOK_VISIT.steps(new SeededOwner(1, "Franklin", List.of()), random))
+			.extracting(Flow.Step::endpoint)
+			.containsExactly("GET /owners/{id}");
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.system.StreamingViews;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.View;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Integration test for the streamed owner listing rendered by {@link StreamingViews}.
+ */
+@SpringBootTest(classes = PetClinicApplication.class,
+		properties = { "petclinic.streaming.chunk-size=2", "spring.jpa.properties.hibernate.generate_statistics=true" })
+@AutoConfigureMockMvc
+class OwnerExportIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private StreamingViews streamingViews;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void testExportRendersAllOwnersWithOneQuery() throws Exception {
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		String html = this.mockMvc.perform(get("/owners/export"))
+			.andExpect(status().isOk())
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+
+		assertThat(html).contains("George Franklin", "Carlos Estaban", "Max, Samantha", "Lucky, Sly");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void testExportFiltersByLastName() throws Exception {
+		String html = this.mockMvc.perform(get("/owners/export").param("lastName", "Davis"))
+			.andExpect(status().isOk())
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+
+		assertThat(html).contains("Betty Davis", "Harold Davis").doesNotContain("George Franklin");
+	}
+
+	@Test
+	void testRowsAreRenderedWhileTheyAreRead() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(this.context.getServletContext());
+		request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, this.context);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		List<Integer> writtenBeforeRow = new ArrayList<>();
+
+		View view = this.streamingViews.streaming("owners/ownersExport", "listOwners",
+				() -> this.owners.streamByLastName("")
+					.peek(owner -> writtenBeforeRow.add(response.getContentAsByteArray().length)));
+		view.render(Map.of(), request, response);
+
+		assertThat(writtenBeforeRow).hasSize(10);
+		// the page header is sent before the first row is read, then one chunk every two
+		// rows
+		assertThat(writtenBeforeRow.get(0)).isPositive();
+		assertThat(writtenBeforeRow.get(2)).isGreaterThan(writtenBeforeRow.get(1));
+		assertThat(writtenBeforeRow.get(9)).isLessThan(response.getContentAsByteArray().length);
+		assertThat(response.getContentAsString()).contains("Jeff Black");
+	}
+
+}
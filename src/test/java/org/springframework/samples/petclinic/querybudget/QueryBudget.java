@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.querybudget;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Largest number of SQL statements of each kind a test may execute, for example
+ * {@code @QueryBudget(select = 2, insert = 1)}. Statements are captured by a proxy around
+ * the {@link javax.sql.DataSource} of every Spring test context, from the start of the
+ * test method to its end, and only on the thread running the test, which is also the one
+ * handling {@code MockMvc} requests. Each row of a JDBC batch counts as one statement.
+ * <p>
+ * A test exceeding its budget fails with the statements it executed, which makes a new
+ * N+1 select visible where it was introduced rather than in production. Declared on a
+ * class, the budget applies to each test method without its own.
+ *
+ * @see QueryBudgetExtension
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+	/**
+	 * The number of {@code SELECT} statements allowed.
+	 * @return the select budget
+	 */
+	int select() default 0;
+
+	/**
+	 * The number of {@code INSERT} statements allowed.
+	 * @return the insert budget
+	 */
+	int insert() default 0;
+
+	/**
+	 * The number of {@code UPDATE} statements allowed.
+	 * @return the update budget
+	 */
+	int update() default 0;
+
+	/**
+	 * The number of {@code DELETE} statements allowed.
+	 * @return the delete budget
+	 */
+	int delete() default 0;
+
+}
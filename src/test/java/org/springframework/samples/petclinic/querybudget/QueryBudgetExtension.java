@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.querybudget;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.springframework.samples.petclinic.querybudget.StatementRecorder.RecordedStatement;
+
+import net.ttddyy.dsproxy.QueryType;
+
+/**
+ * Extension enforcing the {@link QueryBudget} of a test, registered by the annotation.
+ */
+class QueryBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+
+	@Override
+	public void beforeEach(ExtensionContext context) {
+		StatementRecorder.start();
+	}
+
+	@Override
+	public void afterEach(ExtensionContext context) {
+		List<RecordedStatement> statements = StatementRecorder.stop();
+		if (context.getExecutionException().isPresent()) {
+			return;
+		}
+		Optional<QueryBudget> budget = AnnotationSupport
+			.findAnnotation(context.getRequiredTestMethod(), QueryBudget.class)
+			.or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), QueryBudget.class));
+		budget.ifPresent((value) -> check(value, statements));
+	}
+
+	static void check(QueryBudget budget, List<RecordedStatement> statements) {
+		Map<QueryType, Integer> counts = new EnumMap<>(QueryType.class);
+		for (RecordedStatement statement : statements) {
+			counts.merge(statement.type(), statement.executions(), Integer::sum);
+		}
+		StringBuilder exceeded = new StringBuilder();
+		exceeded(exceeded, "select", counts.getOrDefault(QueryType.SELECT, 0), budget.select());
+		exceeded(exceeded, "insert", counts.getOrDefault(QueryType.INSERT, 0), budget.insert());
+		exceeded(exceeded, "update", counts.getOrDefault(QueryType.UPDATE, 0), budget.update());
+		exceeded(exceeded, "delete", counts.getOrDefault(QueryType.DELETE, 0), budget.delete());
+		if (exceeded.length() > 0) {
+			StringBuilder message = new StringBuilder("Query budget exceeded:").append(exceeded)
+				.append("\nExecuted statements:");
+			for (int i = 0; i < statements.size(); i++) {
+				message.append("\n  ").append(i + 1).append(". ").append(statements.get(i));
+			}
+			throw new AssertionError(message.toString());
+		}
+	}
+
+	private static void exceeded(StringBuilder exceeded, String kind, int count, int budget) {
+		if (count > budget) {
+			exceeded.append(' ').append(count).append(' ').append(kind).append(" (budget ").append(budget).append(')');
+		}
+	}
+
+}
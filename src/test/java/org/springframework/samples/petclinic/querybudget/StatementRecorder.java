@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.querybudget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+/**
+ * Records the statements executed through a proxied data source while a recording is
+ * active on the current thread.
+ */
+final class StatementRecorder implements QueryExecutionListener {
+
+	private static final ThreadLocal<List<RecordedStatement>> recording = new ThreadLocal<>();
+
+	static void start() {
+		recording.set(new ArrayList<>());
+	}
+
+	static List<RecordedStatement> stop() {
+		List<RecordedStatement> statements = recording.get();
+		recording.remove();
+		return (statements != null) ? statements : List.of();
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		List<RecordedStatement> statements = recording.get();
+		if (statements == null) {
+			return;
+		}
+		for (QueryInfo query : queryInfoList) {
+			int executions = execInfo.isBatch() ? Math.max(1, query.getParametersList().size()) : 1;
+			statements
+				.add(new RecordedStatement(QueryUtils.getQueryType(query.getQuery()), query.getQuery(), executions));
+		}
+	}
+
+	/**
+	 * A statement executed once, or as many times as it has rows in a batch.
+	 *
+	 * @param type the kind of statement
+	 * @param sql the SQL of the statement
+	 * @param executions the number of executions
+	 */
+	record RecordedStatement(QueryType type, String sql, int executions) {
+
+		@Override
+		public String toString() {
+			return (this.executions > 1) ? this.sql + " (x" + this.executions + ")" : this.sql;
+		}
+
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.querybudget;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+import org.springframework.test.context.MergedContextConfiguration;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * {@link ContextCustomizerFactory} wrapping the data sources of every test context in a
+ * proxy reporting to the {@link StatementRecorder}. Registered in
+ * {@code META-INF/spring.factories}, so that a {@link QueryBudget} can be declared on any
+ * test without changing its context. Statements are only recorded while a test with a
+ * budget runs.
+ */
+class StatementRecordingContextCustomizerFactory implements ContextCustomizerFactory {
+
+	@Override
+	public ContextCustomizer createContextCustomizer(Class<?> testClass,
+			List<ContextConfigurationAttributes> configAttributes) {
+		return new StatementRecordingContextCustomizer();
+	}
+
+	private static final class StatementRecordingContextCustomizer implements ContextCustomizer {
+
+		@Override
+		public void customizeContext(ConfigurableApplicationContext context, MergedContextConfiguration config) {
+			RootBeanDefinition definition = new RootBeanDefinition(DataSourceProxyPostProcessor.class);
+			definition.setRole(RootBeanDefinition.ROLE_INFRASTRUCTURE);
+			((BeanDefinitionRegistry) context.getBeanFactory())
+				.registerBeanDefinition(DataSourceProxyPostProcessor.class.getName(), definition);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof StatementRecordingContextCustomizer;
+		}
+
+		@Override
+		public int hashCode() {
+			return StatementRecordingContextCustomizer.class.hashCode();
+		}
+
+	}
+
+	static final class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+		private final StatementRecorder recorder = new StatementRecorder();
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+				return ProxyDataSourceBuilder.create(beanName, dataSource).listener(this.recorder).build();
+			}
+			return bean;
+		}
+
+	}
+
+}
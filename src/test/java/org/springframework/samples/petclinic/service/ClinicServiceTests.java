@@ -34,6 +34,7 @@ import org.springframework.samples.petclinic.owner.OwnerRepository;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetType;
 import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.samples.petclinic.querybudget.QueryBudget;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
 import org.springframework.stereotype.Service;
@@ -59,6 +60,10 @@ import org.springframework.transaction.annotation.Transactional;
  * <li>An {@link org.springframework.context.ApplicationContext ApplicationContext} is
  * also inherited and can be used for explicit bean lookup if necessary.</li>
  * </ul>
+ * <p>
+ * Each test declares the statements it may execute with a {@link QueryBudget}, so a
+ * mapping change adding queries fails here with the SQL listed.
+ * </p>
  *
  * @author Ken Krebs
  * @author Rod Johnson
@@ -82,6 +87,7 @@ class ClinicServiceTests {
 	Pageable pageable;
 
 	@Test
+	@QueryBudget(select = 3)
 	void shouldFindOwnersByLastName() {
 		Page<Owner> owners = this.owners.findByLastName("Davis", pageable);
 		assertThat(owners).hasSize(2);
@@ -91,6 +97,7 @@ class ClinicServiceTests {
 	}
 
 	@Test
+	@QueryBudget(select = 2)
 	void shouldFindSingleOwnerWithPet() {
 		Owner owner = this.owners.findById(1);
 		assertThat(owner.getLastName()).startsWith("Franklin");
@@ -101,6 +108,7 @@ class ClinicServiceTests {
 
 	@Test
 	@Transactional
+	@QueryBudget(select = 2, insert = 1)
 	void shouldInsertOwner() {
 		Page<Owner> owners = this.owners.findByLastName("Schultz", pageable);
 		int found = (int) owners.getTotalElements();
@@ -120,6 +128,7 @@ class ClinicServiceTests {
 
 	@Test
 	@Transactional
+	@QueryBudget(select = 3, update = 1)
 	void shouldUpdateOwner() {
 		Owner owner = this.owners.findById(1);
 		String oldLastName = owner.getLastName();
@@ -134,6 +143,7 @@ class ClinicServiceTests {
 	}
 
 	@Test
+	@QueryBudget(select = 1)
 	void shouldFindAllPetTypes() {
 		Collection<PetType> petTypes = this.owners.findPetTypes();
 
@@ -145,6 +155,7 @@ class ClinicServiceTests {
 
 	@Test
 	@Transactional
+	@QueryBudget(select = 4, insert = 1, update = 1)
 	void shouldInsertPetIntoDatabaseAndGenerateId() {
 		Owner owner6 = this.owners.findById(6);
 		int found = owner6.getPets().size();
@@ -168,6 +179,7 @@ class ClinicServiceTests {
 
 	@Test
 	@Transactional
+	@QueryBudget(select = 3, update = 1)
 	void shouldUpdatePetName() {
 		Owner owner6 = this.owners.findById(6);
 		Pet pet7 = owner6.getPet(7);
@@ -183,6 +195,7 @@ class ClinicServiceTests {
 	}
 
 	@Test
+	@QueryBudget(select = 2)
 	void shouldFindVets() {
 		Collection<Vet> vets = this.vets.findAll();
 
@@ -195,6 +208,7 @@ class ClinicServiceTests {
 
 	@Test
 	@Transactional
+	@QueryBudget(select = 4, insert = 1)
 	void shouldAddNewVisitForPet() {
 		Owner owner6 = this.owners.findById(6);
 		Pet pet7 = owner6.getPet(7);
@@ -213,6 +227,7 @@ class ClinicServiceTests {
 	}
 
 	@Test
+	@QueryBudget(select = 3)
 	void shouldFindVisitsByPetId() {
 		Owner owner6 = this.owners.findById(6);
 		Pet pet7 = owner6.getPet(7);
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration test for the {@link CacheInvalidations}, with two instances of the
+ * application sharing a database served by an H2 server.
+ */
+class CacheInvalidationsIntegrationTests {
+
+	private static Server server;
+
+	private static ConfigurableApplicationContext first;
+
+	private static ConfigurableApplicationContext second;
+
+	@BeforeAll
+	static void startInstances() throws Exception {
+		server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+		String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:cluster;DB_CLOSE_DELAY=-1";
+		first = start(url, "always");
+		second = start(url, "never");
+	}
+
+	@AfterAll
+	static void stopInstances() {
+		second.close();
+		first.close();
+		server.stop();
+	}
+
+	@BeforeEach
+	void loadVets() {
+		for (ConfigurableApplicationContext instance : new ConfigurableApplicationContext[] { first, second }) {
+			instance.getBean(VetRepository.class).findAll();
+			instance.getBean(FragmentCache.class).put("vets:page:1", "<table>vets</table>");
+			instance.getBean(FragmentCache.class).put("owner:1:pets", "<table>pets</table>");
+		}
+	}
+
+	@Test
+	void testCommittedChangeClearsTheCachesOfOtherInstances() {
+		transaction(second).executeWithoutResult((status) -> {
+			second.getBean(JdbcTemplate.class).update("UPDATE vets SET last_name = 'Carterton' WHERE id = 1");
+			second.getBean(CacheInvalidations.class).publish("vets");
+		});
+
+		assertThat(lastNames(second)).contains("Carterton");
+		assertThat(second.getBean(FragmentCache.class).get("vets:page:1")).isNull();
+		await().atMost(Duration.ofSeconds(10)).until(() -> lastNames(first).contains("Carterton"));
+		assertThat(first.getBean(FragmentCache.class).get("vets:page:1")).isNull();
+		assertThat(first.getBean(FragmentCache.class).get("owner:1:pets")).isNotNull();
+	}
+
+	@Test
+	void testRolledBackChangeKeepsTheCaches() throws Exception {
+		transaction(second).executeWithoutResult((status) -> {
+			second.getBean(CacheInvalidations.class).publish("vets");
+			status.setRollbackOnly();
+		});
+
+		Thread.sleep(500);
+		assertThat(first.getBean(FragmentCache.class).get("vets:page:1")).isNotNull();
+		assertThat(second.getBean(FragmentCache.class).get("vets:page:1")).isNotNull();
+	}
+
+	private static ConfigurableApplicationContext start(String url, String initMode) {
+		return new SpringApplicationBuilder(PetClinicApplication.class)
+			.properties("server.port=0", "spring.datasource.url=" + url, "spring.sql.init.mode=" + initMode,
+					"petclinic.cache-invalidation.poll-interval=100ms", "spring.docker.compose.enabled=false")
+			.run();
+	}
+
+	private static TransactionTemplate transaction(ConfigurableApplicationContext instance) {
+		return new TransactionTemplate(instance.getBean(PlatformTransactionManager.class));
+	}
+
+	private static String lastNames(ConfigurableApplicationContext instance) {
+		StringBuilder names = new StringBuilder();
+		for (Vet vet : instance.getBean(VetRepository.class).findAll()) {
+			names.append(vet.getLastName()).append(' ');
+		}
+		return names.toString();
+	}
+
+}
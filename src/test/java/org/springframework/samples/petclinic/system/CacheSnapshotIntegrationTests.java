@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.Collection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+
+/**
+ * Integration test for the {@link CacheSnapshotter}, writing and restoring the vets cache
+ * as loaded by the {@link VetRepository}.
+ */
+@SpringBootTest(classes = PetClinicApplication.class, properties = { "petclinic.cache-snapshot.enabled=true",
+		"petclinic.cache-snapshot.file=target/cache-snapshot-tests/caches.bin" })
+class CacheSnapshotIntegrationTests {
+
+	private static final Path FILE = Path.of("target/cache-snapshot-tests/caches.bin");
+
+	@Autowired
+	private CacheSnapshotter snapshotter;
+
+	@Autowired
+	private VetRepository vets;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Cache cache;
+
+	@BeforeEach
+	void clearCache(@Autowired CacheManager cacheManager) {
+		this.cache = cacheManager.getCache("vets");
+		this.cache.clear();
+		this.snapshotter.restore();
+		this.cache.clear();
+	}
+
+	@Test
+	void testCacheIsRestoredFromSnapshot() {
+		Collection<Vet> all = this.vets.findAll();
+		this.vets.findAll(PageRequest.of(0, 5));
+		assertThat(this.snapshotter.write()).isEqualTo(2);
+		this.cache.clear();
+
+		assertThat(this.snapshotter.restore()).isEqualTo(2);
+
+		Collection<?> restored = this.cache.get(SimpleKey.EMPTY, Collection.class);
+		assertThat(restored).hasSameSizeAs(all)
+			.map((vet) -> ((Vet) vet).getLastName())
+			.containsExactlyElementsOf(all.stream().map(Vet::getLastName).toList());
+		Vet douglas = restored.stream()
+			.map(Vet.class::cast)
+			.filter((vet) -> vet.getLastName().equals("Douglas"))
+			.findFirst()
+			.orElseThrow();
+		assertThat(douglas.getSpecialties()).map(Specialty::getName).containsExactly("dentistry", "surgery");
+		assertThat(this.cache.get(PageRequest.of(0, 5), Page.class)).hasSize(5);
+		assertThat(this.vets.findAll()).isSameAs(restored);
+	}
+
+	@Test
+	void testSnapshotOfAnotherGenerationIsNeitherRestoredNorWritten() {
+		this.vets.findAll();
+		assertThat(this.snapshotter.write()).isEqualTo(1);
+		nextGeneration();
+		this.cache.clear();
+
+		assertThat(this.snapshotter.restore()).isZero();
+		assertThat(this.cache.get(SimpleKey.EMPTY)).isNull();
+
+		this.vets.findAll();
+		nextGeneration();
+		assertThat(this.snapshotter.write()).isZero();
+		assertThat(FILE).doesNotExist();
+	}
+
+	private void nextGeneration() {
+		this.jdbcTemplate.update("UPDATE data_generation SET generation = generation + 1 WHERE id = 1");
+	}
+
+}
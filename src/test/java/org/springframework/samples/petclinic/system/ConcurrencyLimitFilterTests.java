@@ -0,0 +1,180 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Tests for the {@link ConcurrencyLimitFilter} and its {@link AdaptiveLimit}.
+ */
+class ConcurrencyLimitFilterTests {
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void testLimitShrinksWithSlowRequestsAndGrowsWithFastOnes() {
+		AdaptiveLimit limit = new AdaptiveLimit(10, 2, 12, Duration.ofMillis(100));
+		for (int i = 0; i < 100; i++) {
+			limit.release(limit.tryAcquire(), Duration.ofSeconds(1).toNanos());
+		}
+		assertThat(limit.getLimit()).isEqualTo(2);
+
+		int first = limit.tryAcquire();
+		int second = limit.tryAcquire();
+		assertThat(limit.tryAcquire()).isZero();
+		limit.release(second, Duration.ofMillis(10).toNanos());
+		limit.release(first, Duration.ofMillis(10).toNanos());
+		assertThat(limit.getLimit()).isEqualTo(2);
+		assertThat(limit.getInFlight()).isZero();
+
+		// 2 + 1/2 + 1/2.5 + 1/2.9, one request of each round using at least half
+		for (int round = 0; round < 2; round++) {
+			releaseAll(acquireAll(limit), limit, Duration.ofMillis(10));
+		}
+		assertThat(limit.getLimit()).isEqualTo(3);
+	}
+
+	@Test
+	void testLimitSettlesAtTheConcurrencyMeetingTheLatency() {
+		AdaptiveLimit limit = new AdaptiveLimit(10, 2, 50, Duration.ofMillis(100));
+		for (int round = 0; round < 300; round++) {
+			// past 8 requests in flight, the latency grows just above the target
+			int[] inFlight = acquireAll(limit);
+			releaseAll(inFlight, limit, Duration.ofMillis(100 * inFlight.length / 8));
+			if (round >= 100) {
+				assertThat(limit.getLimit()).isBetween(8, 9);
+			}
+		}
+	}
+
+	@Test
+	void testBurstOfSlowRequestsCutsTheLimitOnce() {
+		AdaptiveLimit limit = new AdaptiveLimit(10, 2, 12, Duration.ofMillis(100));
+		for (int burst = 0; burst < 2; burst++) {
+			releaseAll(acquireAll(limit), limit, Duration.ofSeconds(1));
+		}
+		// 10 * 0.9 after the first burst, 9 * 0.9 after the second one
+		assertThat(limit.getLimit()).isEqualTo(8);
+	}
+
+	@Test
+	void testLimitOnlyGrowsWhenUsed() {
+		AdaptiveLimit limit = new AdaptiveLimit(10, 2, 12, Duration.ofMillis(100));
+		for (int i = 0; i < 20; i++) {
+			limit.release(limit.tryAcquire(), Duration.ofMillis(10).toNanos());
+		}
+		assertThat(limit.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void testExcessSearchesAreShedWhileDetailPagesAreServed() throws Exception {
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new AdaptiveLimit(1, 1, 1, Duration.ofSeconds(1)),
+				new AdaptiveLimit(1, 1, 1, Duration.ofSeconds(1)), this.registry);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(1);
+		CompletableFuture<MockHttpServletResponse> slowSearch = CompletableFuture
+			.supplyAsync(() -> perform(filter, get("/owners"), new HttpServlet() {
+
+				@Override
+				protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+					started.countDown();
+					try {
+						finish.await(10, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
+			}));
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+		MockHttpServletResponse rejected = perform(filter, get("/owners"), null);
+		assertThat(rejected.getStatus()).isEqualTo(503);
+		assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+		assertThat(perform(filter, get("/owners/1"), null).getStatus()).isEqualTo(200);
+		assertThat(perform(filter, get("/owners/export"), null).getStatus()).isEqualTo(503);
+		assertThat(this.registry.get("petclinic.concurrency.rejected").tag("route", "search").counter().count())
+			.isEqualTo(2);
+		assertThat(this.registry.get("petclinic.concurrency.in-flight").tag("route", "search").gauge().value())
+			.isEqualTo(1);
+
+		finish.countDown();
+		assertThat(slowSearch.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+		assertThat(perform(filter, get("/owners"), null).getStatus()).isEqualTo(200);
+		assertThat(this.registry.get("petclinic.concurrency.limit").tag("route", "search").gauge().value())
+			.isEqualTo(1);
+	}
+
+	@Test
+	void testStaticResourcesAndActuatorAreNotLimited() {
+		assertThat(ConcurrencyLimitFilter.route(get("/webjars/bootstrap/5.3.3/dist/css/bootstrap.min.css"))).isNull();
+		assertThat(ConcurrencyLimitFilter.route(get("/resources/images/pets.png"))).isNull();
+		assertThat(ConcurrencyLimitFilter.route(get("/actuator/health"))).isNull();
+		assertThat(ConcurrencyLimitFilter.route(get("/owners/find"))).isEqualTo(ConcurrencyLimitFilter.DETAIL);
+		assertThat(ConcurrencyLimitFilter.route(new MockHttpServletRequest("POST", "/graphql")))
+			.isEqualTo(ConcurrencyLimitFilter.SEARCH);
+	}
+
+	private static int[] acquireAll(AdaptiveLimit limit) {
+		int[] inFlight = new int[limit.getLimit()];
+		for (int i = 0; i < inFlight.length; i++) {
+			inFlight[i] = limit.tryAcquire();
+		}
+		return inFlight;
+	}
+
+	private static void releaseAll(int[] inFlight, AdaptiveLimit limit, Duration latency) {
+		for (int i = inFlight.length - 1; i >= 0; i--) {
+			limit.release(inFlight[i], latency.toNanos());
+		}
+	}
+
+	private static MockHttpServletRequest get(String uri) {
+		return new MockHttpServletRequest("GET", uri);
+	}
+
+	private static MockHttpServletResponse perform(ConcurrencyLimitFilter filter, MockHttpServletRequest request,
+			HttpServlet servlet) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			filter.doFilter(request, response,
+					(servlet != null) ? new MockFilterChain(servlet) : new MockFilterChain());
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+		return response;
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Integration test for the repository timers and the per-request Hibernate statistics,
+ * which are compared with the global statistics enabled here.
+ */
+@SpringBootTest(classes = PetClinicApplication.class,
+		properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class DatabaseMetricsIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void testRepositoryMethodsAreTimedWithPercentiles() throws Exception {
+		this.mockMvc.perform(get("/owners").param("lastName", "Davis")).andExpect(status().isOk());
+
+		Timer timer = this.registry.get("spring.data.repository.invocations")
+			.tags("repository", "OwnerRepository", "method", "findByLastName", "state", "SUCCESS")
+			.timer();
+		assertThat(timer.count()).isPositive();
+		assertThat(timer.takeSnapshot().percentileValues()).hasSize(3);
+	}
+
+	@Test
+	void testRequestStatisticsAreRecordedPerUri() throws Exception {
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		double[] before = totals();
+		statistics.clear();
+		this.mockMvc.perform(get("/owners/6")).andExpect(status().isOk());
+		this.mockMvc.perform(get("/owners/6/pets/7/edit")).andExpect(status().isOk());
+		double[] after = totals();
+
+		assertThat(after[0] - before[0]).isPositive().isEqualTo(statistics.getPrepareStatementCount());
+		assertThat(after[1] - before[1]).isPositive().isEqualTo(statistics.getEntityLoadCount());
+		assertThat(after[2] - before[2]).isEqualTo(statistics.getCollectionFetchCount());
+	}
+
+	@Test
+	void testRequestStatisticsAreExposedByTheMetricsEndpoint() throws Exception {
+		this.mockMvc.perform(get("/actuator/metrics/hibernate.statements")).andExpect(status().isNotFound());
+		this.mockMvc.perform(get("/actuator/metrics/hibernate.request.statements"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.availableTags[0].tag").value("uri"));
+	}
+
+	@Test
+	void testServerTimingIsDisabledByDefault() throws Exception {
+		this.mockMvc.perform(get("/owners/6")).andExpect(header().doesNotExist("Server-Timing"));
+	}
+
+	private double[] totals() {
+		return new double[] { total("hibernate.request.statements"), total("hibernate.request.entities.loaded"),
+				total("hibernate.request.collections.fetched") };
+	}
+
+	private double total(String name) {
+		return this.registry.find(name)
+			.tag("uri", (uri) -> uri.startsWith("/owners/{ownerId}"))
+			.summaries()
+			.stream()
+			.mapToDouble(DistributionSummary::totalAmount)
+			.sum();
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Tests for {@link DatabaseSnapshot} and
+ * {@link DatabaseSnapshotEnvironmentPostProcessor}.
+ */
+class DatabaseSnapshotTests {
+
+	private static final List<Resource> SCRIPTS = List.of(new ClassPathResource("db/h2/schema.sql"),
+			new ClassPathResource("db/h2/data.sql"));
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void restoresCopyOfPopulatedDatabase() throws Exception {
+		String url = new DatabaseSnapshot(this.directory, SCRIPTS).restore();
+
+		assertThat(url).startsWith("jdbc:h2:file:" + this.directory);
+		assertThat(count(url, "SELECT COUNT(*) FROM owners")).isEqualTo(10);
+	}
+
+	@Test
+	void reusesSnapshotUntilScriptsChange() throws Exception {
+		DatabaseSnapshot snapshot = new DatabaseSnapshot(this.directory, SCRIPTS);
+		String first = snapshot.restore();
+		FileTime built = Files.getLastModifiedTime(snapshot.file());
+		execute(first, "DELETE FROM visits");
+
+		String second = snapshot.restore();
+
+		assertThat(second).isNotEqualTo(first);
+		assertThat(Files.getLastModifiedTime(snapshot.file())).isEqualTo(built);
+		assertThat(count(second, "SELECT COUNT(*) FROM visits")).isEqualTo(4);
+		Resource extra = new ByteArrayResource(
+				"INSERT INTO types (name) VALUES ('ferret');".getBytes(StandardCharsets.UTF_8));
+		DatabaseSnapshot changed = new DatabaseSnapshot(this.directory, List.of(SCRIPTS.get(0), SCRIPTS.get(1), extra));
+		assertThat(changed.file()).isNotEqualTo(snapshot.file());
+		assertThat(count(changed.restore(), "SELECT COUNT(*) FROM types WHERE name = 'ferret'")).isEqualTo(1);
+	}
+
+	@Test
+	void pointsDataSourceAtRestoredCopy() {
+		MockEnvironment environment = new MockEnvironment().withProperty("database", "h2")
+			.withProperty("spring.sql.init.schema-locations", "classpath*:db/${database}/schema.sql")
+			.withProperty("spring.sql.init.data-locations", "classpath*:db/${database}/data.sql")
+			.withProperty("petclinic.database.snapshot.enabled", "true")
+			.withProperty("petclinic.database.snapshot.directory", this.directory.toString());
+
+		new DatabaseSnapshotEnvironmentPostProcessor(Supplier::get).postProcessEnvironment(environment,
+				new SpringApplication());
+
+		assertThat(environment.getProperty("spring.datasource.url")).startsWith("jdbc:h2:file:" + this.directory);
+		assertThat(environment.getProperty("spring.sql.init.mode")).isEqualTo("never");
+	}
+
+	@Test
+	void leavesConfiguredDatabaseAlone() {
+		MockEnvironment environment = new MockEnvironment().withProperty("database", "mysql")
+			.withProperty("spring.datasource.url", "jdbc:mysql://localhost/petclinic")
+			.withProperty("petclinic.database.snapshot.enabled", "true")
+			.withProperty("petclinic.database.snapshot.directory", this.directory.toString());
+
+		new DatabaseSnapshotEnvironmentPostProcessor(Supplier::get).postProcessEnvironment(environment,
+				new SpringApplication());
+
+		assertThat(environment.getProperty("spring.datasource.url")).isEqualTo("jdbc:mysql://localhost/petclinic");
+		assertThat(this.directory).isEmptyDirectory();
+	}
+
+	private static int count(String url, String sql) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, DatabaseSnapshot.USERNAME, "");
+				Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery(sql)) {
+			result.next();
+			return result.getInt(1);
+		}
+	}
+
+	private static void execute(String url, String sql) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, DatabaseSnapshot.USERNAME, "");
+				Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+}
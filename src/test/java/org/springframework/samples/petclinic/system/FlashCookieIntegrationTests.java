@@ -0,0 +1,142 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import jakarta.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.web.servlet.FlashMap;
+
+/**
+ * Integration test for the {@link CookieFlashMapManager}: the forms show their messages
+ * after the redirect without ever creating an HTTP session.
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+class FlashCookieIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void testFormsShowTheirMessagesWithoutSession() throws Exception {
+		MvcResult created = perform(post("/owners/new").param("firstName", "Flash")
+			.param("lastName", "Cookie")
+			.param("address", "1 Stateless St.")
+			.param("city", "Madison")
+			.param("telephone", "6085550101"));
+		String owner = created.getResponse().getRedirectedUrl();
+		assertThat(follow(created, owner)).contains("New Owner Created");
+
+		MvcResult pet = perform(
+				post(owner + "/pets/new").param("name", "Crumb").param("type", "dog").param("birthDate", "2020-01-01"));
+		assertThat(follow(pet, owner)).contains("New Pet has been Added", "Crumb");
+
+		MvcResult edited = perform(post(owner + "/edit").param("firstName", "Flash")
+			.param("lastName", "Cookie")
+			.param("address", "2 Stateless St.")
+			.param("city", "Madison")
+			.param("telephone", "6085550101"));
+		assertThat(follow(edited, owner)).contains("Owner Values Updated", "2 Stateless St.");
+	}
+
+	@Test
+	void testFlashCookieIsClearedOnceShown() throws Exception {
+		MvcResult edited = perform(post("/owners/{ownerId}/edit", 9).param("firstName", "David")
+			.param("lastName", "Schroeder")
+			.param("address", "2749 Blackhawk Trail")
+			.param("city", "Madison")
+			.param("telephone", "6085559435"));
+		MvcResult shown = this.mockMvc.perform(get("/owners/9").cookie(flashCookie(edited)))
+			.andExpect(status().isOk())
+			.andReturn();
+		Cookie cleared = shown.getResponse().getCookie(CookieFlashMapManager.COOKIE);
+		assertThat(cleared).isNotNull();
+		assertThat(cleared.getMaxAge()).isZero();
+		assertThat(shown.getRequest().getSession(false)).isNull();
+	}
+
+	@Test
+	void testTamperedCookieIsIgnored() throws Exception {
+		MvcResult edited = perform(post("/owners/{ownerId}/edit", 9).param("firstName", "David")
+			.param("lastName", "Schroeder")
+			.param("address", "2749 Blackhawk Trail")
+			.param("city", "Madison")
+			.param("telephone", "6085559435"));
+		String value = flashCookie(edited).getValue();
+		String payload = value.substring(0, value.indexOf('.'));
+		String tampered = payload.substring(0, payload.length() - 2) + (payload.endsWith("A") ? "BA" : "AA")
+				+ value.substring(payload.length());
+		String page = this.mockMvc.perform(get("/owners/9").cookie(new Cookie(CookieFlashMapManager.COOKIE, tampered)))
+			.andExpect(status().isOk())
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+		assertThat(page).doesNotContain("Owner Values Updated");
+	}
+
+	@Test
+	void testOversizedFlashMapIsDropped() {
+		CookieFlashMapManager manager = new CookieFlashMapManager(new byte[32]);
+		FlashMap flashMap = new FlashMap();
+		flashMap.put("message", "x".repeat(CookieFlashMapManager.MAX_COOKIE_LENGTH));
+		flashMap.setTargetRequestPath("/owners/1");
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/owners/1/edit");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		manager.saveOutputFlashMap(flashMap, request, response);
+		assertThat(response.getCookie(CookieFlashMapManager.COOKIE).getValue()).isEmpty();
+		assertThat(List.of(response.getCookies())).hasSize(1);
+	}
+
+	private MvcResult perform(RequestBuilder request) throws Exception {
+		MvcResult result = this.mockMvc.perform(request).andExpect(status().is3xxRedirection()).andReturn();
+		assertThat(result.getRequest().getSession(false)).isNull();
+		return result;
+	}
+
+	private String follow(MvcResult redirect, String url) throws Exception {
+		MvcResult result = this.mockMvc.perform(get(url).cookie(flashCookie(redirect)))
+			.andExpect(status().isOk())
+			.andReturn();
+		assertThat(result.getRequest().getSession(false)).isNull();
+		return result.getResponse().getContentAsString();
+	}
+
+	private static Cookie flashCookie(MvcResult redirect) {
+		Cookie cookie = redirect.getResponse().getCookie(CookieFlashMapManager.COOKIE);
+		assertThat(cookie).isNotNull();
+		assertThat(cookie.isHttpOnly()).isTrue();
+		return cookie;
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Integration test for the Flight Recorder events, recorded with the shipped
+ * {@code jfr/petclinic.jfc} settings and without thresholds.
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+class FlightRecorderIntegrationTests {
+
+	private static final String PREFIX = "org.springframework.samples.petclinic.";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@TempDir
+	private Path directory;
+
+	private Recording recording;
+
+	@BeforeEach
+	void startRecording() throws Exception {
+		try (Reader settings = new InputStreamReader(new ClassPathResource("jfr/petclinic.jfc").getInputStream(),
+				StandardCharsets.UTF_8)) {
+			this.recording = new Recording(Configuration.create(settings));
+		}
+		for (String event : List.of("Handler", "Render", "Repository", "Flush")) {
+			this.recording.enable(PREFIX + event).withThreshold(Duration.ZERO);
+		}
+		this.recording.start();
+	}
+
+	@AfterEach
+	void closeRecording() {
+		this.recording.close();
+	}
+
+	@Test
+	void testOwnerPageIsRecorded() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+
+		List<RecordedEvent> events = stopRecording();
+		assertThat(events).filteredOn((event) -> is(event, "Handler")).singleElement().satisfies((event) -> {
+			assertThat(event.getString("method")).isEqualTo("GET");
+			assertThat(event.getString("route")).isEqualTo("/owners/{ownerId}");
+			assertThat(event.getInt("ownerId")).isEqualTo(6);
+			assertThat(event.getInt("status")).isEqualTo(200);
+		});
+		assertThat(events).filteredOn((event) -> is(event, "Render"))
+			.singleElement()
+			.satisfies((event) -> assertThat(event.getString("view")).isEqualTo("owners/ownerDetails"));
+		assertThat(events).filteredOn((event) -> is(event, "Repository"))
+			.extracting((event) -> event.getString("repository") + "." + event.getString("method"))
+			.contains("OwnerRepository.findById");
+	}
+
+	@Test
+	void testFlushIsRecorded() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/edit", 5).param("firstName", "Peter")
+				.param("lastName", "McTavish")
+				.param("address", "2387 S. Fair Way")
+				.param("city", "Madison")
+				.param("telephone", "6085552765"))
+			.andExpect(status().is3xxRedirection());
+
+		List<RecordedEvent> events = stopRecording();
+		assertThat(events).filteredOn((event) -> is(event, "Flush"))
+			.anySatisfy((event) -> assertThat(event.getInt("entities")).isPositive());
+		assertThat(events).filteredOn((event) -> is(event, "Handler")).singleElement().satisfies((event) -> {
+			assertThat(event.getString("method")).isEqualTo("POST");
+			assertThat(event.getInt("ownerId")).isEqualTo(5);
+			assertThat(event.getInt("status")).isEqualTo(302);
+		});
+	}
+
+	private List<RecordedEvent> stopRecording() throws Exception {
+		this.recording.stop();
+		Path file = this.directory.resolve("petclinic.jfr");
+		this.recording.dump(file);
+		return RecordingFile.readAllEvents(file);
+	}
+
+	private static boolean is(RecordedEvent event, String name) {
+		return event.getEventType().getName().equals(PREFIX + name);
+	}
+
+}
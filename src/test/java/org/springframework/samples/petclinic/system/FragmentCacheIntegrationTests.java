@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Integration test for the {@link FragmentCacheDialect} on the owner and vet pages. It
+ * books visits and renames a pet, so it gets a context, and a database, of its own.
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+class FragmentCacheIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private FragmentCache fragmentCache;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@BeforeEach
+	void setup() {
+		this.fragmentCache.evictAll();
+	}
+
+	@Test
+	void testOwnerDetailsAreServedFromCache() throws Exception {
+		String first = render("/owners/6");
+		double hits = hits();
+		String second = render("/owners/6");
+		assertThat(hits()).isEqualTo(hits + 1);
+		assertThat(second).isEqualTo(first).doesNotContain("pc:cache");
+		assertThat(this.fragmentCache.get("owner:6:pets:[8, 7]:[[2, 3], [1, 4]]")).contains("Samantha", "Max",
+				"rabies shot");
+	}
+
+	@Test
+	void testVetListIsServedFromCache() throws Exception {
+		String first = render("/vets.html?page=1");
+		assertThat(this.fragmentCache.get("vets:page:1")).contains("James", "radiology");
+		assertThat(render("/vets.html?page=1")).isEqualTo(first);
+		assertThat(render("/vets.html?page=2")).contains("Sharon");
+	}
+
+	@Test
+	void testBookingVisitEvictsOwnerFragments() throws Exception {
+		render("/owners/10");
+		assertThat(this.fragmentCache.get("owner:10:pets:[12, 13]:[[], []]")).isNotNull();
+
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 10, 12).param("description", "annual checkup"))
+			.andExpect(status().is3xxRedirection());
+
+		assertThat(this.fragmentCache.get("owner:10:pets:[12, 13]:[[], []]")).isNull();
+		assertThat(render("/owners/10")).contains("annual checkup");
+	}
+
+	@Test
+	void testVisitBookedWithoutEvictionIsRendered() throws Exception {
+		assertThat(render("/owners/9")).doesNotContain("dental cleaning");
+
+		// as another instance would, saving without evicting the fragments of this one
+		Owner owner = this.owners.findWithVisitsById(9);
+		Visit visit = new Visit();
+		visit.setDescription("dental cleaning");
+		owner.addVisit(11, visit);
+		this.owners.save(owner);
+
+		assertThat(render("/owners/9")).contains("dental cleaning");
+	}
+
+	@Test
+	void testCachedFragmentIsNotProcessedAgain() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/edit", 3, 4).param("name", "[[${7*7}]]")
+				.param("type", "dog")
+				.param("birthDate", "2011-04-17"))
+			.andExpect(status().is3xxRedirection());
+
+		render("/owners/3");
+		assertThat(render("/owners/3")).contains("[[${7*7}]]").doesNotContain("49");
+	}
+
+	@Test
+	void testFragmentExpiresAfterWrite() {
+		FragmentCache fragments = new FragmentCache(1000, Duration.ofMillis(100),
+				new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+		fragments.put("owner:1:pets", "<table>Leo</table>");
+		assertThat(fragments.get("owner:1:pets")).isNotNull();
+		await().atMost(Duration.ofSeconds(5)).until(() -> fragments.get("owner:1:pets") == null);
+	}
+
+	private String render(String url) throws Exception {
+		return this.mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+	}
+
+	private double hits() {
+		return this.meterRegistry.get("cache.gets")
+			.tags("cache", "thymeleaf.fragments", "result", "hit")
+			.functionCounter()
+			.count();
+	}
+
+}
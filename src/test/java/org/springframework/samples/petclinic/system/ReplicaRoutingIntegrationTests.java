@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+
+import jakarta.servlet.http.Cookie;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Integration test for the {@link ReplicaRoutingConfiguration}, with two embedded
+ * replicas whose owner 1 lives in another city than on the primary, so that the page
+ * shows which database it was read from.
+ */
+@SpringBootTest(classes = PetClinicApplication.class,
+		properties = { "petclinic.datasource.replica-urls=jdbc:h2:mem:replica-a;DB_CLOSE_DELAY=-1,"
+				+ "jdbc:h2:mem:replica-b;DB_CLOSE_DELAY=-1", "management.endpoint.health.show-details=always" })
+@AutoConfigureMockMvc
+class ReplicaRoutingIntegrationTests {
+
+	private static final List<String> REPLICAS = List.of("jdbc:h2:mem:replica-a", "jdbc:h2:mem:replica-b");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void moveOwnerOnReplicas() {
+		for (String url : REPLICAS) {
+			new JdbcTemplate(new SimpleDriverDataSource(new org.h2.Driver(), url, "sa", ""))
+				.update("UPDATE owners SET city = 'Replica City' WHERE id = 1");
+		}
+	}
+
+	@Test
+	void testReadsGoToReplicas() throws Exception {
+		for (int i = 0; i < REPLICAS.size(); i++) {
+			assertThat(render("/owners/1")).contains("Replica City");
+		}
+	}
+
+	@Test
+	void testHealthIncludesReplicas() throws Exception {
+		this.mockMvc.perform(get("/actuator/health"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.status").value("UP"))
+			.andExpect(jsonPath("$.components.replicas.details.replica-1").value("UP"))
+			.andExpect(jsonPath("$.components.replicas.details.replica-2").value("UP"));
+	}
+
+	@Test
+	void testClientReadsItsOwnWritesFromPrimary() throws Exception {
+		Cookie pin = this.mockMvc
+			.perform(post("/owners/{ownerId}/edit", 1).param("firstName", "George")
+				.param("lastName", "Franklin")
+				.param("address", "110 W. Liberty St.")
+				.param("city", "Primary Town")
+				.param("telephone", "6085551023"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(cookie().exists(ReadYourWrites.COOKIE))
+			.andReturn()
+			.getResponse()
+			.getCookie(ReadYourWrites.COOKIE);
+
+		String pinned = this.mockMvc.perform(get("/owners/1").cookie(pin))
+			.andExpect(status().isOk())
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+		assertThat(pinned).contains("Primary Town");
+		assertThat(render("/owners/1")).contains("Replica City").doesNotContain("Primary Town");
+	}
+
+	@Test
+	void testFailingReplicaIsEjected() throws Exception {
+		HikariDataSource primary = pool("jdbc:h2:mem:replica-a", "primary");
+		HikariDataSource failing = pool("jdbc:h2:tcp://localhost:1/nothing", "failing");
+		HikariDataSource healthy = pool("jdbc:h2:mem:replica-b", "healthy");
+		try (ReplicaPool replicas = new ReplicaPool(primary, List.of(failing, healthy), Duration.ofMinutes(1),
+				Duration.ofMinutes(1))) {
+			for (int i = 0; i < 3; i++) {
+				try (Connection connection = replicas.getConnection()) {
+					assertThat(connection.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:replica-b");
+				}
+			}
+			assertThat(replicas.getStates()).containsEntry("failing", "EJECTED").containsEntry("healthy", "UP");
+		}
+		finally {
+			primary.close();
+		}
+	}
+
+	private static HikariDataSource pool(String url, String name) {
+		HikariDataSource pool = new HikariDataSource();
+		pool.setJdbcUrl(url);
+		pool.setUsername("sa");
+		pool.setPoolName(name);
+		pool.setConnectionTimeout(250);
+		pool.setInitializationFailTimeout(-1);
+		return pool;
+	}
+
+	private String render(String url) throws Exception {
+		return this.mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+	}
+
+}
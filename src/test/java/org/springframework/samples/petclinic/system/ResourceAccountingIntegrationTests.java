@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Integration test for the per-request allocation and CPU accounting.
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+class ResourceAccountingIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Test
+	void testAllocationAndCpuAreRecordedPerRoute() throws Exception {
+		long[] before = { count(ResourceAccountingInterceptor.ALLOCATED), count(ResourceAccountingInterceptor.CPU) };
+		this.mockMvc.perform(get("/owners/6")).andExpect(status().isOk());
+
+		assertThat(count(ResourceAccountingInterceptor.ALLOCATED)).isEqualTo(before[0] + 1);
+		assertThat(count(ResourceAccountingInterceptor.CPU)).isEqualTo(before[1] + 1);
+		assertThat(summary(ResourceAccountingInterceptor.ALLOCATED).max()).isGreaterThan(10_000);
+		assertThat(summary(ResourceAccountingInterceptor.CPU).totalAmount()).isPositive();
+	}
+
+	@Test
+	void testEndpointListsTopAllocatingRoutes() throws Exception {
+		this.mockMvc.perform(get("/owners/6")).andExpect(status().isOk());
+		this.mockMvc.perform(get("/vets.html")).andExpect(status().isOk());
+
+		this.mockMvc.perform(get("/actuator/allocations"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[*].uri", hasItem("/owners/{ownerId}")))
+			.andExpect(jsonPath("$[*].uri", hasItem("/vets.html")));
+		this.mockMvc.perform(get("/actuator/allocations").param("limit", "1"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(1))
+			.andExpect(jsonPath("$[0].meanBytes").isNumber());
+	}
+
+	private long count(String name) {
+		DistributionSummary summary = this.registry.find(name).tag("uri", "/owners/{ownerId}").summary();
+		return (summary != null) ? summary.count() : 0;
+	}
+
+	private DistributionSummary summary(String name) {
+		return this.registry.get(name).tag("uri", "/owners/{ownerId}").summary();
+	}
+
+}
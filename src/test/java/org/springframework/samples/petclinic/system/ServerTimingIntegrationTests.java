@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Integration test for the {@link ServerTimingFilter}.
+ */
+@SpringBootTest(classes = PetClinicApplication.class, properties = "petclinic.server-timing.enabled=true")
+@AutoConfigureMockMvc
+class ServerTimingIntegrationTests {
+
+	private static final Pattern TIMING = Pattern.compile(
+			"db;dur=([\\d.]+), flush;dur=([\\d.]+), render;dur=([\\d.]+), total;dur=([\\d.]+), queries;desc=(\\d+)");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void testPageTimingIsBrokenDown() throws Exception {
+		MvcResult result = this.mockMvc.perform(get("/owners/6")).andExpect(status().isOk()).andReturn();
+
+		Matcher timing = timing(result);
+		assertThat(Double.parseDouble(timing.group(1))).isPositive();
+		assertThat(Double.parseDouble(timing.group(3))).isPositive();
+		assertThat(Double.parseDouble(timing.group(4)))
+			.isGreaterThanOrEqualTo(Double.parseDouble(timing.group(1)) + Double.parseDouble(timing.group(3)));
+		assertThat(Integer.parseInt(timing.group(5))).isPositive();
+		assertThat(result.getResponse().getContentAsString()).contains("Samantha");
+	}
+
+	@Test
+	void testRedirectAfterSaveIsTimed() throws Exception {
+		MvcResult result = this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, 8).param("description", "nail trim"))
+			.andExpect(status().is3xxRedirection())
+			.andReturn();
+
+		Matcher timing = timing(result);
+		assertThat(Double.parseDouble(timing.group(2))).isLessThanOrEqualTo(Double.parseDouble(timing.group(4)));
+		assertThat(Integer.parseInt(timing.group(5))).isPositive();
+	}
+
+	@Test
+	void testStreamedPageIsTimed() throws Exception {
+		MvcResult result = this.mockMvc.perform(get("/owners/export")).andExpect(status().isOk()).andReturn();
+
+		assertThat(Integer.parseInt(timing(result).group(5))).isEqualTo(1);
+		assertThat(result.getResponse().getContentAsString()).contains("Carlos Estaban");
+	}
+
+	private Matcher timing(MvcResult result) {
+		String header = result.getResponse().getHeader(ServerTimingFilter.HEADER);
+		assertThat(header).isNotNull();
+		Matcher matcher = TIMING.matcher(header);
+		assertThat(matcher.matches()).as(header).isTrue();
+		return matcher;
+	}
+
+}
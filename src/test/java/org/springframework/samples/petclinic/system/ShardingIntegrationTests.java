@@ -0,0 +1,183 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatException;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration test for the {@link ShardingConfiguration}, with the owners spread over two
+ * embedded shards: odd ids on the first one, even ids on the second one.
+ */
+@SpringBootTest(classes = PetClinicApplication.class,
+		properties = "petclinic.sharding.shard-urls=jdbc:h2:mem:shard-a;DB_CLOSE_DELAY=-1,"
+				+ "jdbc:h2:mem:shard-b;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class ShardingIntegrationTests {
+
+	private static final List<JdbcTemplate> SHARDS = List.of(shard("jdbc:h2:mem:shard-a"),
+			shard("jdbc:h2:mem:shard-b"));
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Test
+	void testEachShardHoldsItsOwnersAndAllReferenceData() {
+		assertThat(ids(SHARDS.get(0), "owners")).contains(1, 3, 5, 7, 9).doesNotContain(2, 4, 6, 8, 10);
+		assertThat(ids(SHARDS.get(1), "owners")).contains(2, 4, 6, 8, 10).doesNotContain(1, 3, 5, 7, 9);
+		// owner 6 has pets 7 and 8, with all the visits of the sample data
+		assertThat(ids(SHARDS.get(1), "pets")).contains(7, 8).doesNotContain(1);
+		assertThat(ids(SHARDS.get(0), "visits")).isEmpty();
+		for (JdbcTemplate shard : SHARDS) {
+			assertThat(ids(shard, "types")).hasSize(6);
+			assertThat(ids(shard, "vets")).hasSize(6);
+		}
+	}
+
+	@Test
+	void testOwnerIsReadFromItsShard() throws Exception {
+		assertThat(render("/owners/1")).contains("George", "Franklin", "Leo");
+		assertThat(render("/owners/6")).contains("Samantha", "Max", "rabies shot", "neutered");
+		assertThat(this.owners.findWithVisitsById(6).getPet("Samantha").getVisits()).hasSize(2);
+	}
+
+	@Test
+	void testSearchMergesThePagesOfEveryShard() {
+		Page<Owner> page = this.owners.findByLastName("", PageRequest.of(1, 3));
+		assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(10);
+		assertThat(page.getContent()).extracting(BaseEntity::getId).containsExactly(4, 5, 6);
+
+		Page<Owner> sorted = this.owners.findByLastName("", PageRequest.of(0, 4, Sort.by("lastName")));
+		assertThat(sorted.getContent()).extracting(BaseEntity::getId).containsExactly(7, 6, 2, 4);
+
+		Page<Owner> davis = this.owners.findByLastName("Davis", PageRequest.of(0, 5));
+		assertThat(davis.getTotalElements()).isEqualTo(2);
+		assertThat(davis.getContent()).extracting(BaseEntity::getId).containsExactly(2, 4);
+	}
+
+	@Test
+	void testSearchPagesFollowTheIdsWhenTheShardsReturnAnotherOrder() {
+		// ids go up while the last names go down, so the owners_last_name index hands
+		// every shard its owners in the reverse order of their ids
+		List<Integer> ids = new ArrayList<>();
+		for (char letter = 'f'; letter >= 'a'; letter--) {
+			ids.add(save("Pager" + letter).getId());
+		}
+
+		List<Integer> paged = new ArrayList<>();
+		for (int number = 0; number < 3; number++) {
+			Page<Owner> page = this.owners.findByLastName("Pager", PageRequest.of(number, 2));
+			assertThat(page.getTotalElements()).isEqualTo(6);
+			page.getContent().forEach((owner) -> paged.add(owner.getId()));
+		}
+		assertThat(paged).containsExactlyElementsOf(ids);
+	}
+
+	@Test
+	void testExportReadsEveryShard() throws Exception {
+		assertThat(render("/owners/export")).contains("George", "Betty", "Eduardo", "Harold", "Peter", "Jean", "Jeff",
+				"Maria", "David", "Carlos");
+	}
+
+	@Test
+	void testNewOwnersAreSpreadOverTheShards() {
+		int[] shards = new int[2];
+		for (int i = 0; i < 2; i++) {
+			Owner owner = save("Spreader");
+			shards[i] = ShardRoutingDataSource.shardOf(owner.getId(), SHARDS.size());
+			assertThat(ids(SHARDS.get(shards[i]), "owners")).contains(owner.getId());
+			assertThat(this.owners.findById(owner.getId()).getLastName()).isEqualTo("Spreader");
+		}
+		assertThat(shards[0]).isNotEqualTo(shards[1]);
+	}
+
+	@Test
+	void testNewPetIsSavedOnTheShardOfItsOwner() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/new", 2).param("name", "Shardy")
+				.param("type", "hamster")
+				.param("birthDate", "2015-02-12"))
+			.andExpect(status().is3xxRedirection());
+
+		Integer petId = this.owners.findById(2).getPet("Shardy").getId();
+		assertThat(petId).isGreaterThan(13);
+		assertThat(ids(SHARDS.get(1), "pets")).contains(petId);
+		assertThat(ids(SHARDS.get(0), "pets")).doesNotContain(petId);
+		assertThat(render("/owners/2")).contains("Shardy");
+	}
+
+	@Test
+	void testShardsCannotBeCombinedWithReplicas() {
+		SpringApplicationBuilder application = new SpringApplicationBuilder(PetClinicApplication.class)
+			.web(WebApplicationType.NONE)
+			.properties("petclinic.sharding.shard-urls=jdbc:h2:mem:shard-c",
+					"petclinic.datasource.replica-urls=" + "jdbc:h2:mem:replica-c");
+		assertThatException().isThrownBy(application::run)
+			.withStackTraceContaining(
+					"petclinic.sharding.shard-urls cannot be combined with " + "petclinic.datasource.replica-urls");
+	}
+
+	private Owner save(String lastName) {
+		Owner owner = new Owner();
+		owner.setFirstName("Shard");
+		owner.setLastName(lastName);
+		owner.setAddress("1 Partition Rd.");
+		owner.setCity("Madison");
+		owner.setTelephone("6085550000");
+		this.owners.save(owner);
+		return owner;
+	}
+
+	private static List<Integer> ids(JdbcTemplate shard, String table) {
+		return shard.queryForList("SELECT id FROM " + table, Integer.class);
+	}
+
+	private static JdbcTemplate shard(String url) {
+		return new JdbcTemplate(new SimpleDriverDataSource(new org.h2.Driver(), url, "sa", ""));
+	}
+
+	private String render(String url) throws Exception {
+		return this.mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+	}
+
+}
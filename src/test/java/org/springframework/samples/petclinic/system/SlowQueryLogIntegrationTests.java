@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration test for the {@link SlowQueryLog}, with a threshold logging every query.
+ */
+@SpringBootTest(classes = PetClinicApplication.class, properties = "petclinic.slow-query-log.threshold=0ms")
+@AutoConfigureMockMvc
+class SlowQueryLogIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private SlowQueryLog log;
+
+	@BeforeEach
+	void clearLog() {
+		this.log.clear();
+	}
+
+	@Test
+	void testQueryIsLoggedWithCallerAndPlan() throws Exception {
+		this.mockMvc.perform(get("/owners").param("lastName", "Davis")).andExpect(status().isOk());
+
+		SlowQuery search = this.log.getQueries()
+			.stream()
+			.filter((query) -> query.getSql().contains("like"))
+			.filter((query) -> query.getSql().startsWith("select distinct"))
+			.findFirst()
+			.orElseThrow();
+		assertThat(search.getCaller()).isEqualTo("OwnerRepository.findByLastName");
+		assertThat(search.getParameters()).contains("String").doesNotContain("Davis");
+		await().atMost(Duration.ofSeconds(10)).until(() -> search.getPlan() != null);
+		assertThat(search.getPlan()).contains("PUBLIC.OWNERS_LAST_NAME");
+	}
+
+	@Test
+	void testStatementsAreNotExplained() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/edit", 9).param("firstName", "David")
+				.param("lastName", "Schroeder")
+				.param("address", "2749 Blackhawk Trail")
+				.param("city", "Madison")
+				.param("telephone", "6085559436"))
+			.andExpect(status().is3xxRedirection());
+
+		SlowQuery update = this.log.getQueries()
+			.stream()
+			.filter((query) -> query.getSql().startsWith("update owners"))
+			.findFirst()
+			.orElseThrow();
+		assertThat(update.getCaller()).isEqualTo("OwnerController.processUpdateOwnerForm");
+		Thread.sleep(100);
+		assertThat(update.getPlan()).isNull();
+	}
+
+	@Test
+	void testEndpointListsAndClearsQueries() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+
+		this.mockMvc.perform(get("/actuator/slowqueries"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[*].caller", hasItem("OwnerRepository.findById")))
+			.andExpect(jsonPath("$[0].durationMillis").isNumber());
+		this.mockMvc.perform(delete("/actuator/slowqueries")).andExpect(status().is2xxSuccessful());
+		assertThat(this.log.getQueries()).isEmpty();
+	}
+
+}
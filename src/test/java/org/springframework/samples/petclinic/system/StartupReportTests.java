@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.samples.petclinic.system.StartupReport.Step;
+
+/**
+ * Tests for {@link StartupReport}.
+ */
+class StartupReportTests {
+
+	@Test
+	void testStepsAreRankedByOwnTime() throws Exception {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("spring.beans.instantiate").tag("beanName", "outer");
+		Thread.sleep(20);
+		StartupStep inner = startup.start("spring.beans.instantiate").tag("beanName", "inner");
+		Thread.sleep(100);
+		inner.end();
+		outer.end();
+
+		List<Step> steps = StartupReport.slowest(startup.getBufferedTimeline(), 10);
+		assertThat(steps).extracting(Step::description)
+			.containsExactly("spring.beans.instantiate beanName=inner", "spring.beans.instantiate beanName=outer");
+		assertThat(steps.get(1).duration()).isGreaterThan(steps.get(0).duration());
+		assertThat(steps.get(1).ownTime()).isLessThan(Duration.ofMillis(100));
+	}
+
+	@Test
+	void testReportListsSlowestSteps() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		for (int i = 0; i < 5; i++) {
+			startup.start("step").tag("index", String.valueOf(i)).end();
+		}
+
+		String report = StartupReport.format(Duration.ofMillis(1234), startup.getBufferedTimeline(), 3);
+		assertThat(report).startsWith("Started in 1234 ms, slowest steps by own time (own, total):");
+		assertThat(report.lines()).hasSize(4);
+	}
+
+}
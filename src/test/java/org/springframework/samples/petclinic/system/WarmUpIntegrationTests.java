@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Integration test for the {@link WarmUp}, started on a real port so that the routes are
+ * requested over HTTP, and logging the changes of the readiness state.
+ */
+@SpringBootTest(classes = PetClinicApplication.class, webEnvironment = WebEnvironment.RANDOM_PORT,
+		properties = { "petclinic.warm-up.duration=2s", "logging.level.org.springframework.boot.availability=debug" })
+@ExtendWith(OutputCaptureExtension.class)
+class WarmUpIntegrationTests {
+
+	@Test
+	void testWarmUpIsReportedBeforeReadiness(CapturedOutput output) {
+		String log = output.getOut();
+		assertThat(log).containsPattern("Warm-up completed in \\d+ ms: 10 pooled connections, 6 vets cached, "
+				+ "6 pet types loaded, [1-9]\\d* rounds of 19 requests, first round \\d+ ms, last round \\d+ ms");
+		assertThat(log.indexOf("Warm-up completed")).isLessThan(log.indexOf("ReadinessState changed"));
+		assertThat(log).doesNotContain("Warm-up request failed");
+	}
+
+}
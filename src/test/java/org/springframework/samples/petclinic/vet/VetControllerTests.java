@@ -31,6 +31,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -97,4 +102,54 @@ class VetControllerTests {
 			.andExpect(jsonPath("$.vetList[0].id").value(1));
 	}
 
+	@Test
+	void testShowResourcesVetListXml() throws Exception {
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_XML))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_XML))
+			.andExpect(xpath("/vets/vetList[2]/specialties/name").string("radiology"));
+	}
+
+	@Test
+	void testShowResourcesVetListCbor() throws Exception {
+		byte[] body = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_CBOR))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+			.andReturn()
+			.getResponse()
+			.getContentAsByteArray();
+		JsonNode vets = new CBORMapper().readTree(body);
+		assertThat(vets.at("/vetList/1/specialties/0/name").asText()).isEqualTo("radiology");
+	}
+
+	@Test
+	void testShowResourcesVetListSmile() throws Exception {
+		MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+		byte[] body = mockMvc.perform(get("/vets").accept(smile))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(smile))
+			.andReturn()
+			.getResponse()
+			.getContentAsByteArray();
+		JsonNode vets = new SmileMapper().readTree(body);
+		assertThat(vets.at("/vetList/0/lastName").asText()).isEqualTo("Carter");
+	}
+
+	@Test
+	void testBinaryRepresentationsAreSmallerThanJsonAndXml() throws Exception {
+		int json = payloadSize(MediaType.APPLICATION_JSON);
+		int xml = payloadSize(MediaType.APPLICATION_XML);
+		assertThat(payloadSize(MediaType.APPLICATION_CBOR)).isLessThan(json).isLessThan(xml);
+		assertThat(payloadSize(MediaType.parseMediaType("application/x-jackson-smile"))).isLessThan(json)
+			.isLessThan(xml);
+	}
+
+	private int payloadSize(MediaType mediaType) throws Exception {
+		return mockMvc.perform(get("/vets").accept(mediaType))
+			.andExpect(status().isOk())
+			.andReturn()
+			.getResponse()
+			.getContentAsByteArray().length;
+	}
+
 }
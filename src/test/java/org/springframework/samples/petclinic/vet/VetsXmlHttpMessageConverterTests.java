@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.xml.Jaxb2RootElementHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+/**
+ * Test class for {@link VetsXmlHttpMessageConverter}, checking that the streamed XML is
+ * byte for byte the same as the JAXB marshalling of {@link Vets}.
+ */
+class VetsXmlHttpMessageConverterTests {
+
+	private final VetsXmlHttpMessageConverter converter = new VetsXmlHttpMessageConverter();
+
+	@Test
+	void shouldMatchGoldenFile() throws Exception {
+		String expected = new ClassPathResource("vets.xml", getClass()).getContentAsString(StandardCharsets.UTF_8);
+		assertThat(write(clinicVets())).isEqualTo(expected);
+	}
+
+	@Test
+	void shouldMatchJaxbOutput() throws Exception {
+		Vets vets = clinicVets();
+		Vet special = vet(7, "Seán", "O'Hara & <Sons>");
+		special.addSpecialty(specialty(4, "\"exotic\" & reptiles"));
+		vets.getVetList().add(special);
+		vets.getVetList().add(new Vet());
+		Vet withEmptySpecialty = vet(8, "Ann", "Smith");
+		withEmptySpecialty.addSpecialty(new Specialty());
+		vets.getVetList().add(withEmptySpecialty);
+
+		MockHttpOutputMessage jaxb = new MockHttpOutputMessage();
+		new Jaxb2RootElementHttpMessageConverter().write(vets, MediaType.APPLICATION_XML, jaxb);
+		assertThat(write(vets)).isEqualTo(jaxb.getBodyAsString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void shouldOnlyWriteVets() {
+		assertThat(this.converter.canWrite(Vets.class, MediaType.APPLICATION_XML)).isTrue();
+		assertThat(this.converter.canWrite(Vets.class, MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(this.converter.canWrite(Vet.class, MediaType.APPLICATION_XML)).isFalse();
+		assertThat(this.converter.canRead(Vets.class, MediaType.APPLICATION_XML)).isFalse();
+	}
+
+	private String write(Vets vets) throws Exception {
+		MockHttpOutputMessage output = new MockHttpOutputMessage();
+		this.converter.write(vets, MediaType.APPLICATION_XML, output);
+		assertThat(output.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_XML);
+		return output.getBodyAsString(StandardCharsets.UTF_8);
+	}
+
+	private Vets clinicVets() {
+		Specialty radiology = specialty(1, "radiology");
+		Specialty surgery = specialty(2, "surgery");
+		Specialty dentistry = specialty(3, "dentistry");
+		Vets vets = new Vets();
+		vets.getVetList().add(vet(1, "James", "Carter"));
+		Vet helen = vet(2, "Helen", "Leary");
+		helen.addSpecialty(radiology);
+		vets.getVetList().add(helen);
+		Vet linda = vet(3, "Linda", "Douglas");
+		linda.addSpecialty(surgery);
+		linda.addSpecialty(dentistry);
+		vets.getVetList().add(linda);
+		Vet rafael = vet(4, "Rafael", "Ortega");
+		rafael.addSpecialty(surgery);
+		vets.getVetList().add(rafael);
+		Vet henry = vet(5, "Henry", "Stevens");
+		henry.addSpecialty(radiology);
+		vets.getVetList().add(henry);
+		vets.getVetList().add(vet(6, "Sharon", "Jenkins"));
+		return vets;
+	}
+
+	private Vet vet(int id, String firstName, String lastName) {
+		Vet vet = new Vet();
+		vet.setId(id);
+		vet.setFirstName(firstName);
+		vet.setLastName(lastName);
+		return vet;
+	}
+
+	private Specialty specialty(int id, String name) {
+		Specialty specialty = new Specialty();
+		specialty.setId(id);
+		specialty.setName(name);
+		return specialty;
+	}
+
+}